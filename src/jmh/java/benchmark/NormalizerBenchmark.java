@@ -0,0 +1,150 @@
+package benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import dto.LoadSchemaDTO;
+import generation.SchemaFamily;
+import generation.SchemaGenerator;
+import model.normalization.Normalizer;
+import model.normalization.RepositoryType;
+import util.Log;
+
+/**
+ * Benchmarks {@link Normalizer#normalize()} on the schemas of the test resources and on schemas
+ * generated by {@link SchemaGenerator}. Schemas are parsed once per trial and normalizers are created of the parsed
+ * schemas, which are not altered by them. Therefore each invocation does the same work, only
+ * referenced files are read from disk, and the allocation rate reported by <code>-prof gc</code>
+ * is comparable between runs.
+ * <p>
+ * Run with <code>mvn -P benchmark package</code> and
+ * <code>java -jar target/benchmarks.jar NormalizerBenchmark -prof gc</code> from the root of the
+ * repository.
+ *
+ * @author Lukas Ellinger
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizerBenchmark {
+  private static final LoadSchemaDTO CONFIG = new LoadSchemaDTO.Builder()
+      .allowDistributedSchemas(true)
+      .fetchSchemasOnline(true)
+      .setRepType(RepositoryType.NORMAL)
+      .build();
+
+  /**
+   * Schemas of one directory of the test resources.
+   */
+  @State(Scope.Benchmark)
+  public static class Category {
+    @Param({"basicSchemas", "idRefsSchemas", "fileRefsSchemas", "absoluteURLRefsSchemas"})
+    public String category;
+
+    private final List<JsonObject> schemas = new ArrayList<>();
+    private final List<URI> uris = new ArrayList<>();
+
+    /**
+     * Loads all schemas of the category which can be normalized. Normalizing them once also
+     * stores online references in the <code>Store</code>, such that they are not fetched while
+     * measuring.
+     *
+     * @throws IOException if a schema cannot be read.
+     */
+    @Setup(Level.Trial)
+    public void load() throws IOException {
+      File[] files = new File("src/test/resources", category).listFiles();
+      if (files == null) {
+        throw new IllegalStateException("Run benchmark from the root of the repository");
+      }
+      Arrays.sort(files);
+
+      for (File file : files) {
+        if (!file.isFile() || !file.getName().startsWith("testSchema")) {
+          continue;
+        }
+
+        try {
+          JsonObject schema = JsonParser
+              .parseString(FileUtils.readFileToString(file, StandardCharsets.UTF_8))
+              .getAsJsonObject();
+          new Normalizer(schema, file.toURI(), CONFIG).normalize();
+          schemas.add(schema);
+          uris.add(file.toURI());
+        } catch (RuntimeException e) {
+          Log.warn(file, e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Schema generated by {@link SchemaGenerator}. Files of distributed schemas are written to a
+   * temporary directory, as they are loaded while normalizing.
+   */
+  @State(Scope.Benchmark)
+  public static class Synthetic {
+    @Param({"WIDE", "DEEP", "REF_CHAIN", "ID_SCOPED", "DISTRIBUTED", "RECURSIVE"})
+    public SchemaFamily family;
+
+    @Param({"100"})
+    public int size;
+
+    private File dir;
+    private JsonObject schema;
+    private URI uri;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+      dir = Files.createTempDirectory("benchmark").toFile();
+      File root = SchemaGenerator.write(family, size, dir);
+      schema = JsonParser
+          .parseString(FileUtils.readFileToString(root, StandardCharsets.UTF_8))
+          .getAsJsonObject();
+      uri = root.toURI();
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+      FileUtils.deleteDirectory(dir);
+    }
+  }
+
+  @Benchmark
+  public void normalizeCategory(Category state, Blackhole blackhole) {
+    for (int i = 0; i < state.schemas.size(); i++) {
+      Normalizer normalizer = new Normalizer(state.schemas.get(i), state.uris.get(i), CONFIG);
+      blackhole.consume(normalizer.normalize());
+    }
+  }
+
+  @Benchmark
+  public JsonObject normalizeSynthetic(Synthetic state) {
+    return new Normalizer(state.schema, state.uri, CONFIG).normalize();
+  }
+}
@@ -0,0 +1,139 @@
+package benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import model.recursion.RecursionChecker;
+import model.recursion.RecursionType;
+
+/**
+ * Benchmarks {@link RecursionChecker#checkForRecursion()} on generated normalized schemas. All
+ * graphs are built such that the result is only known after every definition has been checked or
+ * the only cycle has been found at the end of the graph, so the whole graph is traversed:
+ * <ul>
+ * <li><code>CHAIN</code>: each definition references the next one via <code>allOf</code>.</li>
+ * <li><code>UNGUARDED_CYCLE</code>: like <code>CHAIN</code>, but the last definition references
+ * the first one.</li>
+ * <li><code>DENSE</code>: each definition references <code>degree</code> random later definitions
+ * under <code>properties</code>.</li>
+ * <li><code>MIXED</code>: each definition references <code>degree</code> random definitions, later
+ * ones unguarded via <code>anyOf</code> and earlier ones guarded under <code>items</code>.</li>
+ * </ul>
+ * Graphs are generated with a fixed seed once per trial. <code>checkForRecursion</code> does not
+ * alter the schema, so each invocation does the same work. Larger graphs can be benchmarked with
+ * e.g. <code>-p size=5000</code>.
+ *
+ * @author Lukas Ellinger
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecursionCheckerBenchmark {
+  /**
+   * Shapes of generated reference graphs.
+   */
+  public enum Shape {
+    CHAIN, UNGUARDED_CYCLE, DENSE, MIXED
+  }
+
+  @Param({"CHAIN", "UNGUARDED_CYCLE", "DENSE", "MIXED"})
+  public Shape shape;
+
+  @Param({"100", "1000"})
+  public int size;
+
+  @Param({"4"})
+  public int degree;
+
+  private JsonObject schema;
+  private RecursionType expected;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    Random random = new Random(42);
+    JsonObject definitions = new JsonObject();
+
+    for (int i = 0; i < size; i++) {
+      JsonObject definition = new JsonObject();
+      definition.addProperty("title", "d" + i);
+
+      switch (shape) {
+        case CHAIN:
+        case UNGUARDED_CYCLE:
+          if (i + 1 < size) {
+            definition.add("allOf", refs(i + 1));
+          } else if (shape == Shape.UNGUARDED_CYCLE) {
+            definition.add("allOf", refs(0));
+          }
+          break;
+        case DENSE:
+          JsonObject properties = new JsonObject();
+          for (int j = 0; j < degree && i + 1 < size; j++) {
+            properties.add("p" + j, ref(i + 1 + random.nextInt(size - i - 1)));
+          }
+          definition.add("properties", properties);
+          break;
+        case MIXED:
+          JsonArray anyOf = new JsonArray();
+          JsonArray items = new JsonArray();
+          for (int j = 0; j < degree; j++) {
+            int target = random.nextInt(size);
+            if (target > i) {
+              anyOf.add(ref(target));
+            } else {
+              items.add(ref(target));
+            }
+          }
+          definition.add("anyOf", anyOf);
+          definition.add("items", items);
+          break;
+        default:
+          throw new IllegalArgumentException("Unexpected value: " + shape);
+      }
+
+      definitions.add("d" + i, definition);
+    }
+
+    schema = new JsonObject();
+    schema.add("definitions", definitions);
+    schema.add("$ref", ref(0).get("$ref"));
+    expected = new RecursionChecker(schema).checkForRecursion();
+  }
+
+  @Benchmark
+  public RecursionType checkForRecursion() {
+    RecursionType type = new RecursionChecker(schema).checkForRecursion();
+    if (type != expected) {
+      throw new IllegalStateException("Expected " + expected + " but was " + type);
+    }
+    return type;
+  }
+
+  private static JsonObject ref(int target) {
+    JsonObject ref = new JsonObject();
+    ref.addProperty("$ref", "#/definitions/d" + target);
+    return ref;
+  }
+
+  private static JsonArray refs(int target) {
+    JsonArray array = new JsonArray();
+    array.add(ref(target));
+    return array;
+  }
+}
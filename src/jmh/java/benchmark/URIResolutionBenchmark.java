@@ -0,0 +1,88 @@
+package benchmark;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.CanonicalURI;
+
+/**
+ * Benchmarks the checks of <code>FilePointer</code> whether an id identifies an object, as they
+ * are done for every object with an id while a reference of an id-heavy schema is resolved. The
+ * id is resolved against the resolution scope of the object, its trailing hash and its fragment
+ * are removed. <code>plain</code> does this with new <code>URIs</code> each time, like before
+ * {@link CanonicalURI} was introduced, <code>canonical</code> uses the cached forms.
+ * <p>
+ * <code>scopes</code> objects with an id are checked for each of <code>refs</code> references.
+ * NormalizerBenchmark with <code>-p category=idRefsSchemas</code> and
+ * <code>-p family=ID_SCOPED</code> shows the effect on whole normalizations.
+ *
+ * @author Lukas Ellinger
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URIResolutionBenchmark {
+  @Param({"100"})
+  public int scopes;
+
+  @Param({"20"})
+  public int refs;
+
+  private final List<URI> scopeURIs = new ArrayList<>();
+  private final List<String> refStrings = new ArrayList<>();
+
+  @Setup(Level.Trial)
+  public void generate() {
+    for (int i = 0; i < scopes; i++) {
+      scopeURIs.add(URI.create("http://example.com/schemas/s" + (i % 10) + ".json#item" + i));
+    }
+    for (int i = 0; i < refs; i++) {
+      refStrings.add(i % 2 == 0 ? "#item" + i : "s" + (i % 10) + ".json#/definitions/d" + i);
+    }
+  }
+
+  @Benchmark
+  public void plain(Blackhole blackhole) throws URISyntaxException {
+    for (String ref : refStrings) {
+      for (URI scope : scopeURIs) {
+        URI resolved = scope.resolve(ref);
+        String string = resolved.toString();
+        if (string.endsWith("#")) {
+          resolved = new URI(string.substring(0, string.length() - 1));
+        }
+        blackhole.consume(scope.equals(resolved));
+        blackhole.consume(scope.equals(new URI(resolved.getScheme(), resolved.getAuthority(),
+            resolved.getPath(), resolved.getQuery(), null)));
+      }
+    }
+  }
+
+  @Benchmark
+  public void canonical(Blackhole blackhole) {
+    for (String ref : refStrings) {
+      for (URI scope : scopeURIs) {
+        CanonicalURI resolved = CanonicalURI.of(scope).resolve(ref).withoutTrailingHash();
+        blackhole.consume(scope.equals(resolved.toURI()));
+        blackhole.consume(scope.equals(resolved.withoutFragment().toURI()));
+      }
+    }
+  }
+}
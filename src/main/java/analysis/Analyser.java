@@ -3,24 +3,35 @@ package analysis;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.io.FileUtils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
 import exception.DistributedSchemaException;
 import exception.InvalidReferenceException;
+import model.Budget;
 import model.normalization.Normalizer;
 import model.normalization.RepositoryType;
+import model.recursion.Cycle;
+import model.recursion.DistributedRecursionChecker;
 import model.recursion.RecursionChecker;
 import model.recursion.RecursionType;
 import util.CSVUtil;
+import util.DirWalker;
 import util.Log;
+import util.OrderedWorkQueue;
 import util.SchemaUtil;
 
 /**
@@ -29,6 +40,36 @@ import util.SchemaUtil;
  * @author Lukas Ellinger
  */
 public class Analyser {
+  private final LoadSchemaDTO limits;
+  private final int threads;
+
+  public Analyser() {
+    this(null);
+  }
+
+  /**
+   *
+   * @param limits of which the budget of each recursion check is taken. If <code>null</code>,
+   *        recursion checks are not limited.
+   */
+  public Analyser(LoadSchemaDTO limits) {
+    this(limits, 1);
+  }
+
+  /**
+   *
+   * @param limits of which the budget of each recursion check is taken. If <code>null</code>,
+   *        recursion checks are not limited.
+   * @param threads count of workers checking schemas for recursion in
+   *        {@link #analyseRecursion(File, boolean, boolean)}. Has to be at least 1.
+   */
+  public Analyser(LoadSchemaDTO limits, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads need to be at least 1");
+    }
+    this.limits = limits;
+    this.threads = threads;
+  }
 
   /**
    * Analyse all files in <code>normalizedDir</code> for recursion. The schemas need to be
@@ -40,49 +81,245 @@ public class Analyser {
    * @throws IOException if there occurs an error regarding csv.
    */
   public void analyseRecursion(File normalizedDir) throws IOException {
+    analyseRecursion(normalizedDir, false);
+  }
+
+  /**
+   * Analyse all files in <code>normalizedDir</code> for recursion. See
+   * {@link #analyseRecursion(File)}. Schemas are checked while <code>normalizedDir</code> is still
+   * being listed.
+   * 
+   * @param normalizedDir has to be a directory. All schemas need to be normalized.
+   * @param includeSubdirs <code>true</code>, if schemas in subdirectories should be analysed, too.
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  public void analyseRecursion(File normalizedDir, boolean includeSubdirs) throws IOException {
+    analyseRecursion(normalizedDir, includeSubdirs, false);
+  }
+
+  /**
+   * Analyse all files in <code>normalizedDir</code> for recursion. See
+   * {@link #analyseRecursion(File, boolean)}. If <code>witnesses</code> is <code>true</code>, a
+   * witness cycle of each recursive strongly connected component of each recursive schema is
+   * written to "witnesses_{name}.csv", together with its type and all definitions of the component.
+   * <p>
+   * Schemas are read and checked by the workers of this, at most four times as many schemas as
+   * workers are pending at once. Rows are written in the order in which the schemas are listed,
+   * such that the csv files are the same regardless of the count of workers.
+   * 
+   * @param normalizedDir has to be a directory. All schemas need to be normalized.
+   * @param includeSubdirs <code>true</code>, if schemas in subdirectories should be analysed, too.
+   * @param witnesses <code>true</code>, if witness cycles should be written.
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  public void analyseRecursion(File normalizedDir, boolean includeSubdirs, boolean witnesses)
+      throws IOException {
     if (!normalizedDir.isDirectory()) {
       throw new IllegalArgumentException(normalizedDir.getName() + " has to be a directory");
     }
 
-    int recursive = 0;
-    int unguardedRecursive = 0;
-    int invalidReference = 0;
-    File[] files = Objects.requireNonNull(normalizedDir.listFiles());
-    File analysisFile = new File("recursionanalysis_" + normalizedDir.getName() + ".csv");
+    analyseRecursion(normalizedDir, includeSubdirs, witnesses, this::checkRecursion);
+  }
+
+  /**
+   * Analyse all schemas in <code>dir</code> for recursion without normalizing them. Each schema is
+   * checked with a {@link DistributedRecursionChecker}, which follows the references of the schema
+   * into all files it loads. The csv files are the same as the ones of
+   * {@link #analyseRecursion(File, boolean, boolean)}, but their names use <code>dir</code>, and
+   * are written in the same way. Schemas are named like their normalized schemas, such that the
+   * rows can be compared with the ones of the normalized directory.
+   * 
+   * @param dir has to be a directory with schemas, which do not need to be normalized.
+   * @param config of how referenced schemas should be loaded. Its limits are the budget of each
+   *        check.
+   * @param includeSubdirs <code>true</code>, if schemas in subdirectories should be analysed, too.
+   * @param witnesses <code>true</code>, if witness cycles should be written.
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  public void analyseUnnormalizedRecursion(File dir, LoadSchemaDTO config, boolean includeSubdirs,
+      boolean witnesses) throws IOException {
+    if (!dir.isDirectory()) {
+      throw new IllegalArgumentException(dir.getName() + " has to be a directory");
+    }
+
+    analyseRecursion(dir, includeSubdirs, witnesses,
+        (schema, withWitnesses, stats) -> checkUnnormalized(schema, config, withWitnesses, stats));
+  }
+
+  private void analyseRecursion(File dir, boolean includeSubdirs, boolean witnesses,
+      RecursionCheck check) throws IOException {
+    RecursionStats stats = new RecursionStats();
+    File analysisFile = new File("recursionanalysis_" + dir.getName() + ".csv");
     createAnalysisCSV(analysisFile);
+    File witnessFile = witnesses ? new File("witnesses_" + dir.getName() + ".csv") : null;
+    if (witnessFile != null) {
+      CSVUtil.writeToCSV(witnessFile, new String[] {"name", "type", "component", "cycle"});
+    }
 
-    for (File schema : files) {
-      RecursionChecker checker = new RecursionChecker(schema);
-      String[] fileRow = {schema.getName(), "", "", ""};
+    try (DirWalker schemas = new DirWalker(dir, includeSubdirs);
+        OrderedWorkQueue<RecursionResult> queue = new OrderedWorkQueue<>(threads, 4 * threads,
+            result -> result.write(analysisFile, witnessFile))) {
+      for (File schema : schemas) {
+        queue.submit(() -> check.check(schema, witnesses, stats));
+      }
+      queue.finish();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while checking " + dir.getName());
+    }
 
+    stats.log();
+  }
+
+  /**
+   * Reads the normalized <code>schema</code> and checks it for recursion. Can be called by
+   * multiple threads at the same time.
+   * 
+   * @param schema file of the normalized schema.
+   * @param witnesses <code>true</code>, if witness cycles should be found if it is recursive.
+   * @return result of the check. Holds the error if <code>schema</code> cannot be read.
+   */
+  private RecursionResult checkRecursion(File schema, boolean witnesses, RecursionStats stats) {
+    RecursionChecker checker;
+    try {
+      checker = new RecursionChecker(schema);
+    } catch (IOException e) {
+      return new RecursionResult(e);
+    }
+
+    if (limits != null) {
+      checker.setBudget(new Budget(limits));
+    }
+    RecursionResult result = checkRecursion(checker::checkForRecursion,
+        SchemaUtil.removeGzipSuffix(schema.getName()), schema, stats);
+    if (witnesses && result.isRecursive()) {
       try {
-        RecursionType type = checker.checkForRecursion();
-        if (type == RecursionType.GUARDED || type == RecursionType.RECURSION) {
-          fileRow[1] = "TRUE";
-          recursive++;
-
-          if (type != RecursionType.GUARDED) {
-            fileRow[2] = "TRUE";
-            unguardedRecursive++;
-          }
-        }
-      } catch (InvalidReferenceException e) {
-        fileRow[3] = "TRUE";
-        Log.warn(schema, e);
-        invalidReference++;
+        result.cycles = checker.findCycles();
       } catch (Exception e) {
         Log.severe(schema, e);
       }
+    }
+    return result;
+  }
+
+  /**
+   * Checks the unnormalized <code>schema</code> for recursion. The witness cycles are found in the
+   * same pass. Can be called by multiple threads at the same time.
+   * 
+   * @param schema file of the unnormalized schema.
+   * @param config of how referenced schemas should be loaded.
+   * @param witnesses <code>true</code>, if witness cycles should be kept if it is recursive.
+   * @return result of the check.
+   */
+  private RecursionResult checkUnnormalized(File schema, LoadSchemaDTO config, boolean witnesses,
+      RecursionStats stats) {
+    List<Cycle> cycles = new ArrayList<>();
+    RecursionResult result = checkRecursion(() -> {
+      cycles.addAll(new DistributedRecursionChecker(schema, config).findCycles());
+      return Cycle.getType(cycles);
+    }, getNormalizedName(schema), schema, stats);
+
+    if (witnesses) {
+      result.cycles = cycles;
+    }
+    return result;
+  }
+
+  /**
+   * Gets the name the normalized schema of <code>schema</code> would have, such that the rows of
+   * the csv files match the ones of checking the normalized schemas.
+   * 
+   * @param schema file of the unnormalized schema.
+   * @return file name of the normalized schema. The file name of <code>schema</code>, if it is
+   *         no Json file.
+   */
+  private static String getNormalizedName(File schema) {
+    return schema.getName().contains(".json") ? SchemaUtil.getNormalizedFileName(schema.getName())
+        : schema.getName();
+  }
 
-      CSVUtil.writeToCSV(analysisFile, fileRow);
+  /**
+   * Runs <code>check</code> and counts its result in <code>stats</code>. Can be called by multiple
+   * threads at the same time.
+   * 
+   * @param check of the schema for recursion.
+   * @param name of the schema in the csv file.
+   * @param schema file the schema is from. Used for logging.
+   * @return result of the check.
+   */
+  private RecursionResult checkRecursion(Supplier<RecursionType> check, String name, File schema,
+      RecursionStats stats) {
+    stats.total.incrementAndGet();
+    String[] fileRow = {name, "", "", ""};
+
+    try {
+      RecursionType type = check.get();
+      if (type == RecursionType.GUARDED || type == RecursionType.RECURSION) {
+        fileRow[1] = "TRUE";
+        stats.recursive.incrementAndGet();
+
+        if (type != RecursionType.GUARDED) {
+          fileRow[2] = "TRUE";
+          stats.unguardedRecursive.incrementAndGet();
+        }
+      }
+    } catch (InvalidReferenceException e) {
+      fileRow[3] = "TRUE";
+      Log.warn(schema, e);
+      stats.invalidReference.incrementAndGet();
+    } catch (BudgetExceededException e) {
+      Log.warn(schema, e);
+      stats.budgetExceeded.incrementAndGet();
+    } catch (Exception e) {
+      Log.severe(schema, e);
     }
 
-    Log.info("Recursion analysis:");
-    Log.info("Total: " + files.length);
-    Log.info("Recursive: " + recursive);
-    Log.info("Thereof unguarded recursive: " + unguardedRecursive);
-    Log.info("Invalid reference: " + invalidReference);
-    Log.info("----------------------------------");
+    return new RecursionResult(fileRow);
+  }
+
+  /**
+   * Normalizes all schemas in <code>dir</code> and analyses them in the same pass. The results
+   * equal the ones of normalizing <code>dir</code> with {@link DirNormalizer} and calling
+   * {@link #createDetailedStats(File, File)} afterwards, but each normalized schema is checked for
+   * recursion and counted while it is still in memory and written meanwhile. Therefore it is not
+   * read again, and schemas are not normalized a second time to find out whether they are
+   * distributed. These are the schemas which loaded other files. The rows of each schema are
+   * counted while it is parsed for normalization, so it is not read a second time either.
+   * 
+   * @param dir directory of schemas to be normalized and analysed.
+   * @param config of how schemas should be loaded.
+   * @param includeSubdirs <code>true</code>, if schemas in subdirectories should be included.
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  public void normalizeAndAnalyse(File dir, LoadSchemaDTO config, boolean includeSubdirs)
+      throws IOException {
+    File normalizedDir = new File("Normalized_" + dir.getName());
+    File analysisFile = new File("recursionanalysis_" + normalizedDir.getName() + ".csv");
+    File typesFile = new File("schemaTypes_" + dir.getName() + ".csv");
+    createAnalysisCSV(analysisFile);
+    CSVUtil.writeToCSV(typesFile, new String[] {"name", "distributed"});
+    RecursionStats recursionStats = new RecursionStats();
+    DetailedStats detailedStats = new DetailedStats();
+
+    new DirNormalizer(includeSubdirs).normalize(dir, config, false, true,
+        (schema, normalized, rows, dependencies) -> {
+          boolean distributed = !dependencies.isEmpty();
+          RecursionChecker checker = new RecursionChecker(normalized);
+          checker.setName(schema.getName());
+          if (limits != null) {
+            checker.setBudget(new Budget(limits));
+          }
+          RecursionResult result = checkRecursion(checker::checkForRecursion,
+              SchemaUtil.getNormalizedFileName(schema.getName()), schema, recursionStats);
+          result.write(analysisFile, null);
+          CSVUtil.writeToCSV(typesFile,
+              new String[] {schema.getName(), distributed ? "TRUE" : ""});
+          detailedStats.add(distributed, result.isRecursive(), rows,
+              countRowsJSON(normalized));
+        });
+
+    recursionStats.log();
+    detailedStats.log();
   }
 
   /**
@@ -125,6 +362,47 @@ public class Analyser {
     return count;
   }
 
+  /**
+   * Gets rowcount of <code>element</code> pretty printed by <code>Gson</code>, without printing it.
+   * Like <code>Gson</code>, members whose value is null are left out.
+   * 
+   * @param element to count rows of.
+   * @return line count of <code>element</code>.
+   */
+  public int countRowsJSON(JsonElement element) {
+    int count = 0;
+    Deque<JsonElement> stack = new ArrayDeque<>();
+    stack.push(element);
+
+    while (!stack.isEmpty()) {
+      JsonElement current = stack.pop();
+      // opening line or the line of a primitive
+      count++;
+      int children = 0;
+
+      if (current.isJsonObject()) {
+        for (Entry<String, JsonElement> entry : current.getAsJsonObject().entrySet()) {
+          if (!entry.getValue().isJsonNull()) {
+            stack.push(entry.getValue());
+            children++;
+          }
+        }
+      } else if (current.isJsonArray()) {
+        for (JsonElement child : current.getAsJsonArray()) {
+          stack.push(child);
+          children++;
+        }
+      }
+
+      if (children > 0) {
+        // closing line
+        count++;
+      }
+    }
+
+    return count;
+  }
+
   /**
    * Gets rowcount of <code>file</code>. Uses pretty printing of <code>Gson</code>.
    * 
@@ -139,7 +417,7 @@ public class Analyser {
 
     Gson gson = new GsonBuilder().setPrettyPrinting().create();
     JsonElement element =
-        gson.fromJson(FileUtils.readFileToString(file, "UTF-8"), JsonElement.class);
+        gson.fromJson(SchemaUtil.readFile(file), JsonElement.class);
     return countRows(gson.toJson(element));
   }
 
@@ -162,21 +440,24 @@ public class Analyser {
     String[] head = {"name", "distributed"};
     CSVUtil.writeToCSV(csv, head);
 
-    for (File file : Objects.requireNonNull(normalizedDir.listFiles())) {
-      File unnormalized = new File(unnormalizedDir, file.getName().replace("_Normalized", ""));
-      Normalizer normalizer =
-          new Normalizer(unnormalized, new LoadSchemaDTO.Builder()
-              .allowDistributedSchemas(false)
-              .fetchSchemasOnline(false)
-              .setRepType(RepositoryType.NORMAL)
-              .build());
-      try {
-        normalizer.normalize();
-        String[] row = {unnormalized.getName(), ""};
-        CSVUtil.writeToCSV(csv, row);
-      } catch (DistributedSchemaException e) {
-        String[] row = {unnormalized.getName(), "TRUE"};
-        CSVUtil.writeToCSV(csv, row);
+    try (DirWalker files = new DirWalker(normalizedDir, false)) {
+      for (File file : files) {
+        File unnormalized = new File(unnormalizedDir,
+            SchemaUtil.removeGzipSuffix(file.getName()).replace("_Normalized", ""));
+        Normalizer normalizer =
+            new Normalizer(unnormalized, new LoadSchemaDTO.Builder()
+                .allowDistributedSchemas(false)
+                .fetchSchemasOnline(false)
+                .setRepType(RepositoryType.NORMAL)
+                .build());
+        try {
+          normalizer.normalize();
+          String[] row = {unnormalized.getName(), ""};
+          CSVUtil.writeToCSV(csv, row);
+        } catch (DistributedSchemaException e) {
+          String[] row = {unnormalized.getName(), "TRUE"};
+          CSVUtil.writeToCSV(csv, row);
+        }
       }
     }
   }
@@ -202,15 +483,7 @@ public class Analyser {
 
     List<CSVRecord> recordsType = CSVUtil.loadCSV(csvSchemaTypes, ',', true);
     List<CSVRecord> recordsRecursion = CSVUtil.loadCSV(csvRecursion, ',', true);
-    int singleFilesCount = 0;
-    int distributedFilesCount = 0;
-    int totalLocSingleFile = 0;
-    int totalLoCSingleFileNormalized = 0;
-    int totalLocDistributedFile = 0;
-    int totalLoCDistributedFileNormalized = 0;
-    int recursiveCountSingleFiles = 0;
-    int recursiveCountDistributedFiles = 0;
-
+    DetailedStats stats = new DetailedStats();
 
     for (CSVRecord recordType : recordsType) {
       String fileName = recordType.get(0);
@@ -226,61 +499,161 @@ public class Analyser {
         }
       }
 
-      if (recordType.get(1).equals("TRUE")) {
+      stats.add(recordType.get(1).equals("TRUE"), isRecursive,
+          countRowsJSON(new File(unnormalizedDir, fileName)),
+          countRowsJSON(SchemaUtil.getNormalizedFile(normalizedDir, fileName)));
+    }
+
+    stats.log();
+  }
+
+  /**
+   * Counts of a recursion analysis.
+   */
+  private static class RecursionStats {
+    private final AtomicInteger recursive = new AtomicInteger();
+    private final AtomicInteger unguardedRecursive = new AtomicInteger();
+    private final AtomicInteger invalidReference = new AtomicInteger();
+    private final AtomicInteger budgetExceeded = new AtomicInteger();
+    private final AtomicInteger total = new AtomicInteger();
+
+    void log() {
+      Log.info("Recursion analysis:");
+      Log.info("Total: " + total.get());
+      Log.info("Recursive: " + recursive.get());
+      Log.info("Thereof unguarded recursive: " + unguardedRecursive.get());
+      Log.info("Invalid reference: " + invalidReference.get());
+      Log.info("Budget exceeded: " + budgetExceeded.get());
+      Log.info("----------------------------------");
+    }
+  }
+
+  /**
+   * Check of a schema file for recursion, which is run by a worker.
+   */
+  @FunctionalInterface
+  private interface RecursionCheck {
+    RecursionResult check(File schema, boolean witnesses, RecursionStats stats);
+  }
+
+  /**
+   * Row of a schema in the recursion analysis and its witness cycles. Is created by a worker and
+   * written by the thread which lists the schemas.
+   */
+  private static class RecursionResult {
+    private final String[] row;
+    private final IOException error;
+    private List<Cycle> cycles = List.of();
+
+    RecursionResult(String[] row) {
+      this.row = row;
+      this.error = null;
+    }
+
+    RecursionResult(IOException error) {
+      this.row = null;
+      this.error = error;
+    }
+
+    boolean isRecursive() {
+      return row[1].equals("TRUE");
+    }
+
+    /**
+     * Writes the row to <code>analysisFile</code> and the witness cycles to
+     * <code>witnessFile</code>.
+     *
+     * @param witnessFile <code>null</code>, if witness cycles should not be written.
+     * @throws IOException if the schema could not be read or if there occurs an error regarding
+     *         csv.
+     */
+    void write(File analysisFile, File witnessFile) throws IOException {
+      if (error != null) {
+        throw error;
+      }
+
+      CSVUtil.writeToCSV(analysisFile, row);
+      if (witnessFile != null) {
+        for (Cycle cycle : cycles) {
+          CSVUtil.writeToCSV(witnessFile, new String[] {row[0], cycle.getType().name(),
+              String.join(" ", cycle.getComponent()), cycle.toString()});
+        }
+      }
+    }
+  }
+
+  /**
+   * Counts and lines of code of single-file and distributed schemas.
+   */
+  private static class DetailedStats {
+    private int singleFilesCount = 0;
+    private int distributedFilesCount = 0;
+    private int totalLocSingleFile = 0;
+    private int totalLoCSingleFileNormalized = 0;
+    private int totalLocDistributedFile = 0;
+    private int totalLoCDistributedFileNormalized = 0;
+    private int recursiveCountSingleFiles = 0;
+    private int recursiveCountDistributedFiles = 0;
+
+    void add(boolean distributed, boolean isRecursive, int loc, int locNormalized) {
+      if (distributed) {
         if (isRecursive) {
           recursiveCountDistributedFiles++;
         }
-        totalLocDistributedFile += countRowsJSON(new File(unnormalizedDir, fileName));
-        totalLoCDistributedFileNormalized +=
-            countRowsJSON(new File(normalizedDir, normalizedFileName));
+        totalLocDistributedFile += loc;
+        totalLoCDistributedFileNormalized += locNormalized;
         distributedFilesCount++;
       } else {
         if (isRecursive) {
           recursiveCountSingleFiles++;
         }
-        totalLocSingleFile += countRowsJSON(new File(unnormalizedDir, fileName));
-        totalLoCSingleFileNormalized += countRowsJSON(new File(normalizedDir, normalizedFileName));
+        totalLocSingleFile += loc;
+        totalLoCSingleFileNormalized += locNormalized;
         singleFilesCount++;
       }
     }
 
-    double avgLocSingleFile = (double) totalLocSingleFile / singleFilesCount;
-    double avgLocSingleFileNormalized = (double) totalLoCSingleFileNormalized / singleFilesCount;
-
-    double avgLoCDistributedFile = (double) totalLocDistributedFile / distributedFilesCount;
-    double avgLocDistributedFileNormalized = (double) totalLoCDistributedFileNormalized / distributedFilesCount;
-
-    double avgLoCOverall =
-            (double) (totalLocDistributedFile + totalLocSingleFile) / (singleFilesCount + distributedFilesCount);
-    double avgLoCOverallNormalized = (double) (totalLoCDistributedFileNormalized + totalLoCSingleFileNormalized)
-        / (singleFilesCount + distributedFilesCount);
-
-    double blowUpSingleFile = calcBlowUp(avgLocSingleFile, avgLocSingleFileNormalized);
-    double blowUpDistributedFile =
-        calcBlowUp(avgLoCDistributedFile, avgLocDistributedFileNormalized);
-    double blowUpOverall = calcBlowUp(avgLoCOverall, avgLoCOverallNormalized);
-
-    Log.info("Total single-file-schemas: " + singleFilesCount);
-    Log.info("Single-file-schemas recursion: " + recursiveCountSingleFiles);
-    Log.info("Avg LoC single-file-schemas: " + avgLocSingleFile);
-    Log.info("Avg LoC single-file-schemas normalized: " + avgLocSingleFileNormalized);
-    Log.info("BlowUp single-file-schemas: " + blowUpSingleFile);
-    Log.info("----------------------------------");
-    Log.info("Total distributed-schemas: " + distributedFilesCount);
-    Log.info("Distributed-schemas recursion: " + recursiveCountDistributedFiles);
-    Log.info("Avg LoC distributed-schemas: " + avgLoCDistributedFile);
-    Log.info("Avg LoC distributed-schemas normalized: " + avgLocDistributedFileNormalized);
-    Log.info("BlowUp distributed-schemas: " + blowUpDistributedFile);
-    Log.info("----------------------------------");
-    Log.info("Avg LoC overall: " + avgLoCOverall);
-    Log.info("Avg LoC overall normalized: " + avgLoCOverallNormalized);
-    Log.info("BlowUp overall: " + blowUpOverall);
-    Log.info("----------------------------------");
-  }
+    void log() {
+      double avgLocSingleFile = (double) totalLocSingleFile / singleFilesCount;
+      double avgLocSingleFileNormalized = (double) totalLoCSingleFileNormalized / singleFilesCount;
+
+      double avgLoCDistributedFile = (double) totalLocDistributedFile / distributedFilesCount;
+      double avgLocDistributedFileNormalized =
+          (double) totalLoCDistributedFileNormalized / distributedFilesCount;
+
+      double avgLoCOverall = (double) (totalLocDistributedFile + totalLocSingleFile)
+          / (singleFilesCount + distributedFilesCount);
+      double avgLoCOverallNormalized =
+          (double) (totalLoCDistributedFileNormalized + totalLoCSingleFileNormalized)
+              / (singleFilesCount + distributedFilesCount);
+
+      double blowUpSingleFile = calcBlowUp(avgLocSingleFile, avgLocSingleFileNormalized);
+      double blowUpDistributedFile =
+          calcBlowUp(avgLoCDistributedFile, avgLocDistributedFileNormalized);
+      double blowUpOverall = calcBlowUp(avgLoCOverall, avgLoCOverallNormalized);
+
+      Log.info("Total single-file-schemas: " + singleFilesCount);
+      Log.info("Single-file-schemas recursion: " + recursiveCountSingleFiles);
+      Log.info("Avg LoC single-file-schemas: " + avgLocSingleFile);
+      Log.info("Avg LoC single-file-schemas normalized: " + avgLocSingleFileNormalized);
+      Log.info("BlowUp single-file-schemas: " + blowUpSingleFile);
+      Log.info("----------------------------------");
+      Log.info("Total distributed-schemas: " + distributedFilesCount);
+      Log.info("Distributed-schemas recursion: " + recursiveCountDistributedFiles);
+      Log.info("Avg LoC distributed-schemas: " + avgLoCDistributedFile);
+      Log.info("Avg LoC distributed-schemas normalized: " + avgLocDistributedFileNormalized);
+      Log.info("BlowUp distributed-schemas: " + blowUpDistributedFile);
+      Log.info("----------------------------------");
+      Log.info("Avg LoC overall: " + avgLoCOverall);
+      Log.info("Avg LoC overall normalized: " + avgLoCOverallNormalized);
+      Log.info("BlowUp overall: " + blowUpOverall);
+      Log.info("----------------------------------");
+    }
 
-  private double calcBlowUp(double base, double value) {
-    assert base != 0;
+    private static double calcBlowUp(double base, double value) {
+      assert base != 0;
 
-    return value / base - 1;
+      return value / base - 1;
+    }
   }
 }
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.ListIterator;
 import org.apache.commons.io.FileUtils;
 import com.google.common.collect.Lists;
+import util.DirWalker;
 import util.Log;
 import util.SchemaUtil;
 
@@ -25,16 +26,30 @@ public class DirCleaner {
    * @throws IOException
    */
   public void removeNoValidSchemas(File dir) throws IOException {
+    removeNoValidSchemas(dir, false);
+  }
+
+  /**
+   * Deletes the files of all no valid schemas in <code>dir</code>. Files are deleted while
+   * <code>dir</code> is still being listed.
+   * 
+   * @param dir directory to delete no valid schemas.
+   * @param recursive <code>true</code>, if schemas in subdirectories should be deleted, too.
+   * @throws IOException
+   */
+  public void removeNoValidSchemas(File dir, boolean recursive) throws IOException {
     if (!dir.isDirectory()) {
       throw new IllegalArgumentException(dir.getName() + " needs to be a directory");
     }
 
     int count = 0;
     
-    for (File schema : dir.listFiles()) {
-      if (!SchemaUtil.isValidToDraft(schema)) {
-        schema.delete();
-        count++;
+    try (DirWalker schemas = new DirWalker(dir, recursive)) {
+      for (File schema : schemas) {
+        if (!SchemaUtil.isValidToDraft(schema)) {
+          schema.delete();
+          count++;
+        }
       }
     }
     
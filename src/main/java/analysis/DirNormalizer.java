@@ -2,12 +2,33 @@ package analysis;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.gson.JsonObject;
 import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
 import exception.DistributedSchemaException;
 import exception.DraftValidationException;
 import exception.InvalidReferenceException;
 import exception.StoreException;
+import model.normalization.SchemaFile;
+import util.DirWalker;
 import util.Log;
+import util.Manifest;
+import util.Metrics;
+import util.SchemaProfile;
 import util.SchemaUtil;
 
 /**
@@ -16,6 +37,43 @@ import util.SchemaUtil;
  * @author Lukas Ellinger
  */
 public class DirNormalizer {
+  // count of normalized schemas waiting to be written, before normalizing waits for the writer
+  private static final int PENDING_WRITES = 16;
+  private final boolean recursive;
+
+  /**
+   * Is notified of every schema which has been normalized successfully.
+   */
+  public interface Listener {
+    /**
+     * Called after <code>schema</code> has been normalized to <code>normalized</code>.
+     *
+     * @param schema root schema which has been normalized.
+     * @param normalized normalized schema. Must not be altered, as it may still be written.
+     * @param rows line count of <code>schema</code> pretty printed by <code>Gson</code>, counted
+     *        while it was read.
+     * @param dependencies <code>URIs</code> of all other schemas loaded for normalization.
+     * @throws IOException if the listener cannot record the schema.
+     */
+    void normalized(File schema, JsonObject normalized, int rows, Set<String> dependencies)
+        throws IOException;
+  }
+
+  public DirNormalizer() {
+    this(false);
+  }
+
+  /**
+   *
+   * @param recursive <code>true</code>, if schemas in subdirectories should be normalized, too.
+   *        Schemas are identified by their file name, so file names need to be unique across all
+   *        subdirectories. Once a name is listed a second time, no further schemas are normalized
+   *        and an <code>IllegalArgumentException</code> is thrown after the manifest has been
+   *        saved.
+   */
+  public DirNormalizer(boolean recursive) {
+    this.recursive = recursive;
+  }
 
   /**
    * Normalizes all valid schemas in <code>dir</code> and stores them.
@@ -25,36 +83,229 @@ public class DirNormalizer {
    * @throws IOException
    */
   public void normalize(File dir, LoadSchemaDTO config) throws IOException {
+    normalize(dir, config, false);
+  }
+
+  /**
+   * Normalizes all valid schemas in <code>dir</code> and stores them. The inputs of each normalized
+   * schema are recorded in the manifest "Manifest_{name}.json" with {name} being
+   * <code>dir.getName()</code>. If <code>incremental</code> is chosen, only schemas whose own
+   * content or any dependency has changed since the last run are normalized. Normalized schemas of
+   * no longer existing schemas are deleted. Metrics of the run are logged and written to
+   * "Metrics_{name}.json", a profile of each normalized schema to "Profile_{name}.csv". Schemas are
+   * normalized while <code>dir</code> is still being listed.
+   * 
+   * @param dir directory of schemas to be normalized.
+   * @param config of how schemas should be loaded.
+   * @param incremental <code>true</code>, if only changed schemas should be normalized.
+   *        <code>false</code>, if all schemas should be normalized.
+   * @throws IOException
+   */
+  public void normalize(File dir, LoadSchemaDTO config, boolean incremental) throws IOException {
+    normalize(dir, config, incremental, false, null);
+  }
+
+  /**
+   * Normalizes all valid schemas in <code>dir</code> like
+   * {@link #normalize(File, LoadSchemaDTO, boolean)}. Each normalized schema is handed to
+   * <code>listener</code> in memory, such that it does not need to be read again.
+   *
+   * @param writeAsync <code>true</code>, if normalized schemas should be written by another
+   *        thread while the next schema is normalized. All schemas are written before returning.
+   *        If writing a schema fails, no further schemas are normalized, the entries of all schemas
+   *        which could not be written are removed from the manifest and an
+   *        <code>IOException</code> is thrown after the manifest has been saved.
+   * @param listener to hand normalized schemas to. May be <code>null</code>. Has to handle
+   *        failures of its own analysis itself. It may already have been called for a schema
+   *        which could not be written.
+   * @throws IOException
+   */
+  public void normalize(File dir, LoadSchemaDTO config, boolean incremental, boolean writeAsync,
+      Listener listener) throws IOException {
     if (!dir.isDirectory()) {
       throw new IllegalArgumentException(dir.getName() + " needs to be a directory");
     }
 
+    Metrics.reset();
     DirCleaner cleaner = new DirCleaner();
-    cleaner.removeNoValidSchemas(dir);
+    cleaner.removeNoValidSchemas(dir, recursive);
 
     File normalizedDir = new File("Normalized_" + dir.getName());
     normalizedDir.mkdir();
     File csvLineage = new File("Lineage_" + dir.getName() + ".csv");
+    File manifestFile = new File("Manifest_" + dir.getName() + ".json");
+    File csvProfile = new File("Profile_" + dir.getName() + ".csv");
+    csvProfile.delete();
+    Manifest manifest =
+        incremental ? Manifest.load(manifestFile, config) : new Manifest(config);
+    // listed schemas by their name
+    Map<String, File> schemaNames = new HashMap<>();
+    // schemas whose name has been listed before, as output and manifest are keyed by name
+    List<File> duplicates = new ArrayList<>();
 
     int invalidReference = 0;
     int draftValidation = 0;
-    for (File schema : dir.listFiles()) {
-      try {
-        SchemaUtil.normalize(schema, null, normalizedDir, csvLineage, config);
-      } catch (InvalidReferenceException e) {
-        invalidReference++;
-        Log.warn(schema, e);
-      } catch (DraftValidationException e) {
-        draftValidation++;
-        Log.warn(schema, e);
-      } catch (DistributedSchemaException | StoreException e) {
-        Log.warn(schema, e);
+    int budgetExceeded = 0;
+    int upToDate = 0;
+    // if the writer falls behind, the normalizing thread writes itself
+    ThreadPoolExecutor writer = !writeAsync ? null
+        : new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(PENDING_WRITES), new ThreadPoolExecutor.CallerRunsPolicy());
+    // schemas which could not be written mapped to the failure
+    Map<String, Exception> failedWrites = new ConcurrentHashMap<>();
+    try (DirWalker schemas = new DirWalker(dir, recursive)) {
+      for (File schema : schemas) {
+        if (schemaNames.putIfAbsent(schema.getName(), schema) != null) {
+          duplicates.add(schema);
+        }
+        if (!failedWrites.isEmpty() || !duplicates.isEmpty()) {
+          // stop normalizing, but go on listing, such that no schema is taken for deleted
+          continue;
+        }
+
+        if (incremental && manifest.isUpToDate(schema, schema.toURI(), normalizedDir)) {
+          upToDate++;
+          continue;
+        }
+
+        SchemaProfile.begin(schema.getName(), schema.toURI().toString());
+        PendingProfile profile = writer == null ? null : new PendingProfile(csvProfile);
+        try {
+          SchemaFile normalized = SchemaUtil.normalize(schema, null, normalizedDir, csvLineage,
+              config, manifest, null,
+              writer == null ? null : writerOf(writer, schema, profile, failedWrites));
+          if (listener != null) {
+            listener.normalized(schema, normalized.getObject(), normalized.getRows(),
+                manifest.getDependencies(schema.getName()));
+          }
+        } catch (InvalidReferenceException e) {
+          invalidReference++;
+          manifest.remove(schema.getName(), normalizedDir);
+          Log.warn(schema, e);
+        } catch (DraftValidationException e) {
+          draftValidation++;
+          manifest.remove(schema.getName(), normalizedDir);
+          Log.warn(schema, e);
+        } catch (BudgetExceededException e) {
+          budgetExceeded++;
+          manifest.remove(schema.getName(), normalizedDir);
+          Log.warn(schema, e);
+        } catch (DistributedSchemaException | StoreException e) {
+          manifest.remove(schema.getName(), normalizedDir);
+          Log.warn(schema, e);
+        } finally {
+          if (profile == null) {
+            SchemaProfile.end().writeToCSV(csvProfile);
+          } else {
+            SchemaProfile.end();
+            profile.finish();
+          }
+        }
+      }
+    } finally {
+      if (writer != null) {
+        awaitWrites(writer);
       }
     }
 
+    for (Entry<String, Exception> failedWrite : failedWrites.entrySet()) {
+      manifest.remove(failedWrite.getKey(), normalizedDir);
+      Log.severe(failedWrite.getKey(), failedWrite.getValue());
+    }
+    int stale = manifest.retainAll(schemaNames.keySet(), normalizedDir);
+    manifest.save(manifestFile);
+    if (!duplicates.isEmpty()) {
+      File duplicate = duplicates.get(0);
+      throw new IllegalArgumentException("File names need to be unique, but "
+          + duplicate.getPath() + " has the same name as "
+          + schemaNames.get(duplicate.getName()).getPath());
+    }
+    if (!failedWrites.isEmpty()) {
+      throw new IOException("Could not write normalized schemas of " + failedWrites.keySet(),
+          failedWrites.values().iterator().next());
+    }
+    if (incremental) {
+      manifest.writeLineage(csvLineage);
+    }
+
     Log.info("Normalization process:");
     Log.info("Invalid reference: " + invalidReference);
     Log.info("Normalized schemas not valid to draft: " + draftValidation);
+    Log.info("Budget exceeded: " + budgetExceeded);
+    if (incremental) {
+      Log.info("Up to date: " + upToDate);
+      Log.info("Stale normalized schemas deleted: " + stale);
+    }
     Log.info("----------------------------------");
+    config.logPermalinkUsage();
+    Metrics.logSummary();
+    Metrics.writeReport(new File("Metrics_" + dir.getName() + ".json"));
+  }
+
+  /**
+   * Gets an <code>Executor</code> which writes the normalized schema of <code>schema</code> with
+   * <code>writer</code> and puts a failure of writing into <code>failedWrites</code>. The write is
+   * recorded in <code>profile</code>.
+   */
+  private static Executor writerOf(Executor writer, File schema, PendingProfile profile,
+      Map<String, Exception> failedWrites) {
+    return task -> {
+      profile.submitted();
+      writer.execute(() -> {
+        SchemaProfile previous = SchemaProfile.attach(profile.profile);
+        try {
+          task.run();
+        } catch (RuntimeException e) {
+          failedWrites.put(schema.getName(),
+              e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : e);
+        } finally {
+          SchemaProfile.attach(previous);
+        }
+
+        try {
+          profile.finish();
+        } catch (IOException e) {
+          failedWrites.put(schema.getName(), e);
+        }
+      });
+    };
+  }
+
+  /**
+   * Profile of a schema whose normalized schema may still be written by another thread. It is
+   * written to the csv file once normalizing and writing have finished.
+   */
+  private static class PendingProfile {
+    private final SchemaProfile profile = SchemaProfile.current();
+    private final File csv;
+    // count of normalizing and writing, which have not finished yet
+    private final AtomicInteger pending = new AtomicInteger(1);
+
+    PendingProfile(File csv) {
+      this.csv = csv;
+    }
+
+    void submitted() {
+      pending.incrementAndGet();
+    }
+
+    void finish() throws IOException {
+      if (pending.decrementAndGet() == 0) {
+        // rows are written by the normalizing and the writing thread
+        synchronized (csv) {
+          profile.writeToCSV(csv);
+        }
+      }
+    }
+  }
+
+  private static void awaitWrites(ThreadPoolExecutor writer) throws InterruptedIOException {
+    writer.shutdown();
+    try {
+      writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing normalized schemas");
+    }
   }
 }
@@ -0,0 +1,257 @@
+package analysis;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
+import exception.DistributedSchemaException;
+import exception.DraftValidationException;
+import exception.InvalidReferenceException;
+import exception.StoreException;
+import model.Budget;
+import model.normalization.SchemaCache;
+import model.recursion.RecursionChecker;
+import model.recursion.RecursionType;
+import util.CSVUtil;
+import util.DirWalker;
+import util.Log;
+import util.Manifest;
+import util.Metrics;
+import util.SchemaUtil;
+
+/**
+ * Watches a directory of schemas and keeps its normalized schemas and their recursion analysis up
+ * to date. Bursts of file events are collected until no further event occurs for
+ * <code>debounceMillis</code>. Afterwards only changed schemas and all schemas depending on them
+ * are normalized and checked for recursion again. Loaded schemas are kept across updates, those
+ * of changed files are dropped.
+ *
+ * @author Lukas Ellinger
+ */
+public class DirWatcher {
+  // count of loaded schemas which are kept at most
+  private static final int CACHE_SIZE = 512;
+  private final File dir;
+  private final LoadSchemaDTO config;
+  private final long debounceMillis;
+  private final File normalizedDir;
+  private final File csvLineage;
+  private final File manifestFile;
+  private final File analysisFile;
+  private final File metricsFile;
+  private final Manifest manifest;
+  private final Map<String, RecursionType> recursion = new TreeMap<>();
+  // loaded schemas shared by all updates
+  private final SchemaCache cache = new SchemaCache(CACHE_SIZE);
+
+  /**
+   *
+   * @param dir directory of schemas to be watched.
+   * @param config of how schemas should be loaded.
+   * @param debounceMillis time in milliseconds without file events after which changed schemas
+   *        are normalized.
+   * @throws IOException if stored manifest cannot be read.
+   */
+  public DirWatcher(File dir, LoadSchemaDTO config, long debounceMillis) throws IOException {
+    if (!dir.isDirectory()) {
+      throw new IllegalArgumentException(dir.getName() + " needs to be a directory");
+    }
+
+    this.dir = dir;
+    this.config = config;
+    this.debounceMillis = debounceMillis;
+    normalizedDir = new File("Normalized_" + dir.getName());
+    normalizedDir.mkdir();
+    csvLineage = new File("Lineage_" + dir.getName() + ".csv");
+    manifestFile = new File("Manifest_" + dir.getName() + ".json");
+    analysisFile = new File("recursionanalysis_" + normalizedDir.getName() + ".csv");
+    metricsFile = new File("Metrics_" + dir.getName() + ".json");
+    manifest = Manifest.load(manifestFile, config);
+  }
+
+  /**
+   * Normalizes all changed schemas of <code>dir</code> and afterwards watches it until the thread
+   * is interrupted.
+   *
+   * @throws IOException if <code>dir</code> cannot be watched.
+   */
+  public void watch() throws IOException {
+    try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+      dir.toPath().register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+      update(initialSchemas());
+      Log.info("Watching " + dir.getPath());
+
+      while (!Thread.currentThread().isInterrupted()) {
+        Set<String> changed = new TreeSet<>();
+        WatchKey key = watchService.take();
+
+        // collect events until there is a quiet period
+        while (key != null) {
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+              changed.addAll(initialSchemas());
+            } else {
+              changed.add(((Path) event.context()).getFileName().toString());
+            }
+          }
+          key.reset();
+          key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        update(changed);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Gets all schemas in <code>dir</code> whose normalized schema is not up to date. Up to date
+   * normalized schemas are only checked for recursion. If one cannot be read or checked, it is
+   * deleted and its schema is normalized again.
+   *
+   * @return file names of all schemas which need to be normalized.
+   * @throws IOException if <code>dir</code> cannot be listed.
+   */
+  private Set<String> initialSchemas() throws IOException {
+    Set<String> schemas = new TreeSet<>();
+    Set<String> schemaNames = new TreeSet<>();
+
+    try (DirWalker files = new DirWalker(dir, false)) {
+      for (File schema : files) {
+        if (isSchemaFile(schema)) {
+          schemaNames.add(schema.getName());
+          if (!manifest.isUpToDate(schema, schema.toURI(), normalizedDir)) {
+            schemas.add(schema.getName());
+            continue;
+          }
+
+          try {
+            File normalized = SchemaUtil.getNormalizedFile(normalizedDir, schema.getName());
+            RecursionChecker checker = new RecursionChecker(normalized);
+            checker.setName(schema.getName());
+            recursion.put(schema.getName(), checker.checkForRecursion());
+          } catch (IOException | RuntimeException e) {
+            // e.g. corrupt normalized schema, which is normalized again
+            manifest.remove(schema.getName(), normalizedDir);
+            recursion.remove(schema.getName());
+            schemas.add(schema.getName());
+            Log.warn(schema, e);
+          }
+        }
+      }
+    }
+
+    manifest.retainAll(schemaNames, normalizedDir);
+    return schemas;
+  }
+
+  /**
+   * Normalizes and checks all schemas with file names in <code>changed</code> and all schemas
+   * depending on them. Normalized schemas of deleted schemas are removed.
+   *
+   * @param changed file names of changed schemas.
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  private void update(Set<String> changed) throws IOException {
+    Set<String> affected = new TreeSet<>();
+
+    for (String name : changed) {
+      File schema = new File(dir, name);
+      String uri = schema.toURI().toString();
+      manifest.invalidate(uri);
+      cache.invalidate(schema.toURI());
+      affected.addAll(manifest.getDependents(uri));
+
+      if (isSchemaFile(schema)) {
+        affected.add(name);
+      } else if (!schema.exists() && name.endsWith(".json")) {
+        // other files, e.g. temporary files of editors, have no normalized schema
+        manifest.remove(name, normalizedDir);
+        recursion.remove(name);
+      }
+    }
+
+    if (changed.isEmpty()) {
+      return;
+    }
+
+    for (String name : affected) {
+      File schema = new File(dir, name);
+
+      if (!isSchemaFile(schema)) {
+        continue;
+      }
+
+      try {
+        if (!SchemaUtil.isValidToDraft(schema)) {
+          throw new DraftValidationException(name + " is not valid to draft");
+        }
+
+        JsonObject normalized = SchemaUtil.normalize(schema, null, normalizedDir, csvLineage,
+            config, manifest, cache, null).getObject();
+        RecursionChecker checker = new RecursionChecker(normalized);
+        checker.setName(name);
+        checker.setBudget(new Budget(config));
+        RecursionType type = checker.checkForRecursion();
+        recursion.put(name, type);
+        Log.info(name + ": " + type.name());
+      } catch (InvalidReferenceException | DraftValidationException | DistributedSchemaException
+          | StoreException | BudgetExceededException e) {
+        manifest.remove(name, normalizedDir);
+        recursion.remove(name);
+        Log.warn(schema, e);
+      } catch (RuntimeException e) {
+        // a single schema must not stop watching
+        manifest.remove(name, normalizedDir);
+        recursion.remove(name);
+        Log.severe(schema, e);
+      }
+    }
+
+    manifest.save(manifestFile);
+    manifest.writeLineage(csvLineage);
+    writeAnalysis();
+    Metrics.writeReport(metricsFile);
+    Log.info(affected.size() + " schemas updated");
+  }
+
+  /**
+   * Writes the current recursion analysis to <code>analysisFile</code> in the format of
+   * {@link Analyser#analyseRecursion(File)}.
+   *
+   * @throws IOException if there occurs an error regarding csv.
+   */
+  private void writeAnalysis() throws IOException {
+    analysisFile.delete();
+    String[] head = {"name", "recursiv", "unguarded_recursiv", "invalid_reference"};
+    CSVUtil.writeToCSV(analysisFile, head);
+
+    for (Map.Entry<String, RecursionType> entry : recursion.entrySet()) {
+      RecursionType type = entry.getValue();
+      String[] fileRow = {SchemaUtil.getNormalizedFileName(entry.getKey()),
+          type == RecursionType.NONE ? "" : "TRUE",
+          type == RecursionType.RECURSION ? "TRUE" : "", ""};
+      CSVUtil.writeToCSV(analysisFile, fileRow);
+    }
+  }
+
+  private boolean isSchemaFile(File file) {
+    return file.isFile() && file.getName().endsWith(".json");
+  }
+}
@@ -9,12 +9,15 @@ import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.apache.commons.csv.CSVRecord;
 import org.apache.commons.io.FileUtils;
 import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
 import exception.DistributedSchemaException;
 import exception.DraftValidationException;
 import exception.InvalidReferenceException;
@@ -23,6 +26,9 @@ import model.normalization.Normalizer;
 import model.recursion.RecursionChecker;
 import util.CSVUtil;
 import util.Log;
+import util.Manifest;
+import util.Metrics;
+import util.SchemaProfile;
 import util.SchemaUtil;
 import util.URIUtil;
 
@@ -44,20 +50,47 @@ public class SchemaCorpus {
    */
   public void normalize(File schema_corpus, File fullPath, LoadSchemaDTO config)
       throws IOException {
+    normalize(schema_corpus, fullPath, config, false);
+  }
+
+  /**
+   * Normalizes all valid schemas of Schema Corpus and stores them. The inputs of each normalized
+   * schema are recorded in the manifest "Manifest_{name}.json" with {name} being
+   * <code>schema_corpus.getName()</code>. If <code>incremental</code> is chosen, only schemas whose
+   * own content or any dependency has changed since the last run are normalized.
+   * 
+   * @param schema_corpus directory of <code>schema_corpus</code>.
+   * @param fullPath file of <code>repos_fullPath.csv</code>.
+   * @param config of how schemas should be loaded.
+   * @param incremental <code>true</code>, if only changed schemas should be normalized.
+   *        <code>false</code>, if all schemas should be normalized.
+   * @throws IOException
+   */
+  public void normalize(File schema_corpus, File fullPath, LoadSchemaDTO config,
+      boolean incremental) throws IOException {
     if (!schema_corpus.isDirectory() || !fullPath.exists()) {
       throw new IllegalArgumentException(schema_corpus.getName() + " needs to be a directory and "
           + fullPath.getName() + " needs to exist");
     }
 
+    Metrics.reset();
     cleanCorpus(schema_corpus, fullPath);
 
     List<CSVRecord> records = CSVUtil.loadCSV(fullPath, ' ', false);
     File normalizedDir = new File("Normalized_" + schema_corpus.getName());
     normalizedDir.mkdir();
     File csvLineage = new File("Lineage_" + schema_corpus.getName() + ".csv");
+    File manifestFile = new File("Manifest_" + schema_corpus.getName() + ".json");
+    File csvProfile = new File("Profile_" + schema_corpus.getName() + ".csv");
+    csvProfile.delete();
+    Manifest manifest =
+        incremental ? Manifest.load(manifestFile, config) : new Manifest(config);
+    Set<String> schemaNames = new HashSet<>();
 
     int invalidReference = 0;
     int draftValidation = 0;
+    int budgetExceeded = 0;
+    int upToDate = 0;
     for (CSVRecord record : records) {
       String file = record.get(0);
       file = file.replaceFirst("js", "pp");
@@ -66,16 +99,33 @@ public class SchemaCorpus {
       try {
         URI recordURI = URIUtil.urlToUri(new URL(record.get(1)));
         if (schema.exists()) {
+          schemaNames.add(schema.getName());
+
+          if (incremental && manifest.isUpToDate(schema, recordURI, normalizedDir)) {
+            upToDate++;
+            continue;
+          }
+
+          SchemaProfile.begin(schema.getName(), recordURI.toString());
           try {
-            SchemaUtil.normalize(schema, recordURI, normalizedDir, csvLineage, config);
+            SchemaUtil.normalize(schema, recordURI, normalizedDir, csvLineage, config, manifest);
           } catch (InvalidReferenceException e) {
             invalidReference++;
+            manifest.remove(schema.getName(), normalizedDir);
             Log.warn(schema, e);
           } catch (DraftValidationException e) {
             draftValidation++;
+            manifest.remove(schema.getName(), normalizedDir);
+            Log.warn(schema, e);
+          } catch (BudgetExceededException e) {
+            budgetExceeded++;
+            manifest.remove(schema.getName(), normalizedDir);
             Log.warn(schema, e);
           } catch (DistributedSchemaException | StoreException e) {
+            manifest.remove(schema.getName(), normalizedDir);
             Log.warn(schema, e);
+          } finally {
+            SchemaProfile.end().writeToCSV(csvProfile);
           }
         }
       } catch (URISyntaxException e) {
@@ -83,10 +133,24 @@ public class SchemaCorpus {
       }
     }
 
+    int stale = manifest.retainAll(schemaNames, normalizedDir);
+    manifest.save(manifestFile);
+    if (incremental) {
+      manifest.writeLineage(csvLineage);
+    }
+
     Log.info("Normalization process:");
     Log.info("Invalid references: " + invalidReference);
     Log.info("Normalized schemas not valid to draft: " + draftValidation);
+    Log.info("Budget exceeded: " + budgetExceeded);
+    if (incremental) {
+      Log.info("Up to date: " + upToDate);
+      Log.info("Stale normalized schemas deleted: " + stale);
+    }
     Log.info("----------------------------------");
+    config.logPermalinkUsage();
+    Metrics.logSummary();
+    Metrics.writeReport(new File("Metrics_" + schema_corpus.getName() + ".json"));
   }
 
   /**
@@ -142,6 +206,7 @@ public class SchemaCorpus {
           try {
             Normalizer normalizer = new Normalizer(unnormalized, reposURI, config);
             RecursionChecker checker = new RecursionChecker(normalizer.normalize());
+            checker.setName(unnormalized.getName());
             Log.info(unnormalized.getName() + ": " + checker.checkForRecursion().name());
           } catch (InvalidReferenceException e) {
             Log.warn(unnormalized.getName(), e);
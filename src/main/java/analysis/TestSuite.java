@@ -16,6 +16,7 @@ import dto.LoadSchemaDTO;
 import model.normalization.Normalizer;
 import model.normalization.RepositoryType;
 import util.Converter;
+import util.DirWalker;
 import util.Log;
 import util.SchemaUtil;
 import util.TestObject;
@@ -27,21 +28,30 @@ import util.TestObject;
  */
 public class TestSuite extends DirNormalizer {
 
+  /**
+   * Is handed each schema of the testsuite with its specific test data.
+   */
+  private interface TestDataConsumer {
+    void accept(Pair<JsonObject, TestObject[]> testData) throws IOException;
+  }
+
   /**
    * Normalizes all extracted valid schemas of <code>testSuiteDir</code> and stores them.
    * 
    * @param testSuiteDir directory of TestSuite.
    * @param config of how schemas should be loaded.
+   * @param incremental <code>true</code>, if only changed schemas should be normalized.
+   *        <code>false</code>, if all schemas should be normalized.
    * @throws IOException
    */
   @Override
-  public void normalize(File testSuiteDir, LoadSchemaDTO config) throws IOException {
-    List<Pair<JsonObject, TestObject[]>> testData = getTestData(testSuiteDir);
+  public void normalize(File testSuiteDir, LoadSchemaDTO config, boolean incremental)
+      throws IOException {
     File extractedSchemas = new File("extractedSchemas_" + testSuiteDir.getName());
     extractedSchemas.mkdir();
-    extractSchemas(extractedSchemas, testData);
+    forEachTestData(testSuiteDir, schema -> extractSchema(extractedSchemas, schema));
 
-    super.normalize(extractedSchemas, config);
+    super.normalize(extractedSchemas, config, incremental);
   }
 
   /**
@@ -51,15 +61,15 @@ public class TestSuite extends DirNormalizer {
    * 
    * @param testSuiteDir directory in which files of the testsuite are stored.
    * @param config of how schemas should be loaded.
+   * @throws IOException
    */
-  public void checkForCorrectNormalization(File testSuiteDir, LoadSchemaDTO config) {
+  public void checkForCorrectNormalization(File testSuiteDir, LoadSchemaDTO config)
+      throws IOException {
     if (!testSuiteDir.isDirectory()) {
       throw new IllegalArgumentException(testSuiteDir.getName() + " needs to be a directory");
     }
     config.setRepType(RepositoryType.TESTSUITE);
-    List<Pair<JsonObject, TestObject[]>> schemas = getTestData(testSuiteDir);
-
-    for (Pair<JsonObject, TestObject[]> schema : schemas) {
+    forEachTestData(testSuiteDir, schema -> {
       File tmp = new File("/tmp/schema.json");
 
       try {
@@ -81,73 +91,84 @@ public class TestSuite extends DirNormalizer {
       } catch (Exception e) {
         Log.severe(schema.getRight()[1].getBelongsTo(), e);
       }
-    }
+    });
   }
 
   /**
-   * Splits files of the testsuite in schemas with their specific test data.
+   * Splits files of the testsuite in schemas with their specific test data. Files are split one
+   * after another while <code>testSuiteDir</code> is still being listed, such that only the test
+   * data of a single file is held in memory at once.
    * 
-   * @param testSuiteDir directory in which files of the testsuite are stored.
-   * @return schemas with their specific test data.
+   * @param testSuiteDir directory in which files of the testsuite are stored. Its subdirectories
+   *        are included.
+   * @param consumer of each schema with its specific test data.
+   * @throws IOException if <code>consumer</code> throws it.
    */
-  private List<Pair<JsonObject, TestObject[]>> getTestData(File testSuiteDir) {
+  private void forEachTestData(File testSuiteDir, TestDataConsumer consumer)
+      throws IOException {
     assert testSuiteDir.isDirectory();
 
-    File[] schemas = testSuiteDir.listFiles();
+    try (DirWalker files = new DirWalker(testSuiteDir, true)) {
+      for (File file : files) {
+        for (Pair<JsonObject, TestObject[]> testData : getTestData(file)) {
+          consumer.accept(testData);
+        }
+      }
+    }
+  }
+
+  /**
+   * Splits a file of the testsuite in schemas with their specific test data.
+   * 
+   * @param file of the testsuite.
+   * @return schemas with their specific test data. Empty, if <code>file</code> cannot be read.
+   */
+  private List<Pair<JsonObject, TestObject[]>> getTestData(File file) {
     List<Pair<JsonObject, TestObject[]>> testData = new ArrayList<>();
-    for (File file : schemas) {
-      try {
-        if (file.isDirectory()) {
-          testData.addAll(getTestData(file));
-        } else {
-          JSONArray array = new JSONArray(FileUtils.readFileToString(file, "UTF-8"));
-
-          for (int i = 0; i < array.length(); i++) {
-            JSONObject index = array.getJSONObject(i);
-            Object schemaObj = index.get("schema");
-
-            if (schemaObj instanceof JSONObject) {
-              JSONObject schema = (JSONObject) schemaObj;
-              JSONArray testsArray = index.getJSONArray("tests");
-              TestObject[] tests = new TestObject[testsArray.length()];
-
-              for (int j = 0; j < testsArray.length(); j++) {
-                JSONObject testJ = testsArray.getJSONObject(j);
-                tests[j] = new TestObject(file.getName() + " Schema: " + i + " Test: " + j,
-                    testJ.get("data"), testJ.getBoolean("valid"));
-              }
-
-              testData.add(new ImmutablePair<>(Converter.toJson(schema), tests));
-            } else {
-              Log.severe(file.getName() + " Schema:" + i + " has no JSONObject schema");
-            }
+
+    try {
+      JSONArray array = new JSONArray(FileUtils.readFileToString(file, "UTF-8"));
+
+      for (int i = 0; i < array.length(); i++) {
+        JSONObject index = array.getJSONObject(i);
+        Object schemaObj = index.get("schema");
+
+        if (schemaObj instanceof JSONObject) {
+          JSONObject schema = (JSONObject) schemaObj;
+          JSONArray testsArray = index.getJSONArray("tests");
+          TestObject[] tests = new TestObject[testsArray.length()];
+
+          for (int j = 0; j < testsArray.length(); j++) {
+            JSONObject testJ = testsArray.getJSONObject(j);
+            tests[j] = new TestObject(file.getName() + " Schema: " + i + " Test: " + j,
+                testJ.get("data"), testJ.getBoolean("valid"));
           }
+
+          testData.add(new ImmutablePair<>(Converter.toJson(schema), tests));
+        } else {
+          Log.severe(file.getName() + " Schema:" + i + " has no JSONObject schema");
         }
-      } catch (Exception e) {
-        Log.severe(file.getName() + " " + e.getMessage());
       }
+    } catch (Exception e) {
+      Log.severe(file.getName() + " " + e.getMessage());
     }
 
     return testData;
   }
 
   /**
-   * Stores all schemas of <code>splittedTests</code> in <code>dir</code>.
+   * Stores the schema of <code>splittedTest</code> in <code>dir</code>.
    * 
-   * @param dir location of where to store schemas.
-   * @param splittedTests to store the schemas from.
-   * @throws IOException if schemas cannot be stored to <code>dir</code>.
+   * @param dir location of where to store the schema.
+   * @param splittedTest to store the schema from.
+   * @throws IOException if the schema cannot be stored to <code>dir</code>.
    */
-  private void extractSchemas(File dir, List<Pair<JsonObject, TestObject[]>> splittedTests)
+  private void extractSchema(File dir, Pair<JsonObject, TestObject[]> splittedTest)
       throws IOException {
-    dir.mkdir();
-
-    for (Pair<JsonObject, TestObject[]> pair : splittedTests) {
-      String belongsTo = pair.getRight()[0].getBelongsTo();
-      belongsTo = belongsTo.substring(0, belongsTo.indexOf(".json Schema:"))
-          + belongsTo.charAt(belongsTo.indexOf("Schema: ") + 8) + ".json";
-      File file = new File(dir, belongsTo);
-      SchemaUtil.writeJsonToFile(pair.getLeft(), file);
-    }
+    String belongsTo = splittedTest.getRight()[0].getBelongsTo();
+    belongsTo = belongsTo.substring(0, belongsTo.indexOf(".json Schema:"))
+        + belongsTo.charAt(belongsTo.indexOf("Schema: ") + 8) + ".json";
+    File file = new File(dir, belongsTo);
+    SchemaUtil.writeJsonToFile(splittedTest.getLeft(), file);
   }
 }
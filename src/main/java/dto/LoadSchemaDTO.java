@@ -1,13 +1,18 @@
 package dto;
 
 import model.normalization.RepositoryType;
+import util.PermalinkTrie;
 
 import java.util.Map;
 
 /**
  * DTO to store information about how schemas should be loaded. It is stored whether distributed
  * schemas should be allowed, whether references of the schema should be loaded online and from
- * which repository the schema is from.
+ * which repository the schema is from. Additionally the resources a single schema may use can be
+ * limited. A limit of 0 means that the resource is not limited. Normalized schemas are written
+ * pretty printed, unless compact output is chosen. Normalized schemas and downloaded references
+ * can be written gzip-compressed. Links to permalinks are compiled into a {@link PermalinkTrie}
+ * once, such that each link is rewritten in a single lookup.
  * 
  * @author Lukas Ellinger
  */
@@ -16,6 +21,13 @@ public class LoadSchemaDTO {
   private final boolean fetchSchemasOnline;
   private RepositoryType repType;
   private final Map<String, String> linksToPermalinks;
+  private final PermalinkTrie permalinks;
+  private final long maxMillis;
+  private final int maxDefinitions;
+  private final int maxLoadedFiles;
+  private final int maxDepth;
+  private final boolean compactOutput;
+  private final boolean gzipOutput;
 
   public boolean isAllowDistributedSchemas() {
     return allowDistributedSchemas;
@@ -33,40 +45,79 @@ public class LoadSchemaDTO {
     this.repType = repType;
   }
 
+  public Map<String, String> getLinksToPermalinks() {
+    return linksToPermalinks;
+  }
+
   public boolean hasLinksToPermalinks() {
     return linksToPermalinks != null;
   }
 
-  public String getPermalink(String link) {
-    for (String key : linksToPermalinks.keySet()) {
-      if (link.startsWith(key)) {
-        return link.replace(key, linksToPermalinks.get(key));
-      }
-    }
+  public long getMaxMillis() {
+    return maxMillis;
+  }
 
-    throw new RuntimeException(link + " has no permalink");
+  public int getMaxDefinitions() {
+    return maxDefinitions;
   }
 
-  public boolean hasPermalink(String link) {
-    for (String key : linksToPermalinks.keySet()) {
-      if (link.startsWith(key)) {
-        return true;
-      }
+  public int getMaxLoadedFiles() {
+    return maxLoadedFiles;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public boolean isCompactOutput() {
+    return compactOutput;
+  }
+
+  public boolean isGzipOutput() {
+    return gzipOutput;
+  }
+
+  /**
+   * Gets the permalink of <code>link</code>, if there is one. The longest link prefix of
+   * <code>link</code> is replaced by its permalink prefix.
+   * 
+   * @param link to get the permalink of.
+   * @return permalink of <code>link</code>. <code>null</code>, if it has none.
+   */
+  public String findPermalink(String link) {
+    return permalinks == null ? null : permalinks.rewrite(link);
+  }
+
+  /**
+   * Logs which link prefixes have been used to rewrite links, if there are any.
+   */
+  public void logPermalinkUsage() {
+    if (permalinks != null) {
+      permalinks.logUsage();
     }
-    return false;
   }
 
   public static LoadSchemaDTO of(boolean allowDistributedSchemas, boolean fetchSchemasOnline,
       RepositoryType repType, Map<String, String> linksToPermalinks) {
-    return new LoadSchemaDTO(allowDistributedSchemas, fetchSchemasOnline, repType, linksToPermalinks);
+    return new LoadSchemaDTO(allowDistributedSchemas, fetchSchemasOnline, repType, linksToPermalinks,
+        0, 0, 0, 0, false, false);
   }
 
   private LoadSchemaDTO(boolean allowDistributedSchemas, boolean fetchSchemasOnline,
-      RepositoryType repType, Map<String, String> linksToPermalinks) {
+      RepositoryType repType, Map<String, String> linksToPermalinks, long maxMillis,
+      int maxDefinitions, int maxLoadedFiles, int maxDepth, boolean compactOutput,
+      boolean gzipOutput) {
     this.allowDistributedSchemas = allowDistributedSchemas;
     this.fetchSchemasOnline = fetchSchemasOnline;
     this.repType = repType;
     this.linksToPermalinks = linksToPermalinks;
+    this.permalinks = linksToPermalinks == null ? null : new PermalinkTrie(linksToPermalinks);
+    this.maxMillis = maxMillis;
+    this.maxDefinitions = maxDefinitions;
+    this.maxLoadedFiles = maxLoadedFiles;
+    this.maxDepth = maxDepth;
+    this.compactOutput = compactOutput;
+    this.gzipOutput = gzipOutput;
   }
 
   public static class Builder {
@@ -74,6 +125,12 @@ public class LoadSchemaDTO {
     private boolean fetchSchemasOnline;
     private RepositoryType repType;
     private Map<String, String> linksToPermalinks;
+    private long maxMillis;
+    private int maxDefinitions;
+    private int maxLoadedFiles;
+    private int maxDepth;
+    private boolean compactOutput;
+    private boolean gzipOutput;
 
     public Builder allowDistributedSchemas(boolean allowDistributedSchemas) {
       this.allowDistributedSchemas = allowDistributedSchemas;
@@ -95,8 +152,40 @@ public class LoadSchemaDTO {
       return this;
     }
 
+    public Builder setMaxMillis(long maxMillis) {
+      this.maxMillis = maxMillis;
+      return this;
+    }
+
+    public Builder setMaxDefinitions(int maxDefinitions) {
+      this.maxDefinitions = maxDefinitions;
+      return this;
+    }
+
+    public Builder setMaxLoadedFiles(int maxLoadedFiles) {
+      this.maxLoadedFiles = maxLoadedFiles;
+      return this;
+    }
+
+    public Builder setMaxDepth(int maxDepth) {
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    public Builder compactOutput(boolean compactOutput) {
+      this.compactOutput = compactOutput;
+      return this;
+    }
+
+    public Builder gzipOutput(boolean gzipOutput) {
+      this.gzipOutput = gzipOutput;
+      return this;
+    }
+
     public LoadSchemaDTO build() {
-      return LoadSchemaDTO.of(allowDistributedSchemas, fetchSchemasOnline, repType, linksToPermalinks);
+      return new LoadSchemaDTO(allowDistributedSchemas, fetchSchemasOnline, repType,
+          linksToPermalinks, maxMillis, maxDefinitions, maxLoadedFiles, maxDepth, compactOutput,
+          gzipOutput);
     }
   }
 }
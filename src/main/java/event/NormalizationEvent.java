@@ -0,0 +1,38 @@
+package event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of normalizing a root schema.
+ *
+ * @author Lukas Ellinger
+ */
+@Name("refexpander.Normalization")
+@Label("Normalization")
+@Category({"JSON Schema", "Normalization"})
+@Description("Normalization of a root schema")
+public class NormalizationEvent extends Event {
+  @Label("Schema")
+  @Description("Id of the root schema")
+  public String schema;
+
+  @Label("Loaded Files")
+  public int loadedFiles;
+
+  @Label("Added Definitions")
+  public int addedDefinitions;
+
+  @Label("Visited Nodes")
+  public int visitedNodes;
+
+  @Label("Max Depth")
+  public int maxDepth;
+
+  @Label("Error")
+  @Description("Type of the exception if normalization failed")
+  public String error;
+}
@@ -0,0 +1,28 @@
+package event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of checking a normalized schema for recursion.
+ *
+ * @author Lukas Ellinger
+ */
+@Name("refexpander.RecursionCheck")
+@Label("Recursion Check")
+@Category({"JSON Schema", "Recursion"})
+@Description("Check of a normalized schema for recursion")
+public class RecursionCheckEvent extends Event {
+  @Label("Schema")
+  @Description("File name or URI of the schema, if known")
+  public String schema;
+
+  @Label("Definitions")
+  public int definitions;
+
+  @Label("Result")
+  public String result;
+}
@@ -0,0 +1,34 @@
+package event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of resolving a reference while normalizing.
+ *
+ * @author Lukas Ellinger
+ */
+@Name("refexpander.RefResolution")
+@Label("Reference Resolution")
+@Category({"JSON Schema", "Normalization"})
+@Description("Resolution of a $ref to the element it references")
+public class RefResolutionEvent extends Event {
+  @Label("Reference")
+  public String ref;
+
+  @Label("Resolution Scope")
+  @Description("Resolution scope the reference is resolved against")
+  public String scope;
+
+  @Label("Referencing File")
+  public String file;
+
+  @Label("Referenced File")
+  public String targetFile;
+
+  @Label("Resolved")
+  public boolean resolved;
+}
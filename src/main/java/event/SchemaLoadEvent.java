@@ -0,0 +1,34 @@
+package event;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of loading a schema file.
+ *
+ * @author Lukas Ellinger
+ */
+@Name("refexpander.SchemaLoad")
+@Label("Schema Load")
+@Category({"JSON Schema", "Normalization"})
+@Description("Loading and parsing of a schema file")
+public class SchemaLoadEvent extends Event {
+  @Label("URI")
+  @Description("Location the schema is loaded from")
+  public String uri;
+
+  @Label("Source")
+  @Description("Where the schema was read from: file, store, http, https or testsuite")
+  public String source;
+
+  @Label("Size")
+  @DataAmount
+  public long bytes;
+
+  @Label("Loaded")
+  public boolean loaded;
+}
@@ -0,0 +1,20 @@
+package exception;
+
+/**
+ * Is thrown if a schema uses more resources than allowed by its {@link model.Budget}. Only the
+ * schema which exceeded its budget is aborted.
+ * 
+ * @author Lukas Ellinger
+ */
+public class BudgetExceededException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public BudgetExceededException() {
+    super();
+  }
+
+  public BudgetExceededException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,37 @@
+package generation;
+
+/**
+ * Families of schemas which can be generated by {@link SchemaGenerator}. The size of a generated
+ * schema is given by a single parameter, whose meaning depends on the family.
+ *
+ * @author Lukas Ellinger
+ */
+public enum SchemaFamily {
+  /**
+   * <code>size</code> definitions, each referenced by a property of the root.
+   */
+  WIDE,
+  /**
+   * Properties nested <code>size</code> levels deep and a reference to the middle of them.
+   */
+  DEEP,
+  /**
+   * <code>size</code> definitions, each only referencing the next one.
+   */
+  REF_CHAIN,
+  /**
+   * <code>size</code> definitions, each changing the resolution scope by an id. They are referenced
+   * by ids relative to their scope.
+   */
+  ID_SCOPED,
+  /**
+   * <code>size</code> files alternating between a directory and its subdirectory, each referencing
+   * the next one by a relative file reference.
+   */
+  DISTRIBUTED,
+  /**
+   * <code>size</code> definitions forming a guarded cycle and an acyclic chain of unguarded
+   * references.
+   */
+  RECURSIVE
+}
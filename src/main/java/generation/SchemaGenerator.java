@@ -0,0 +1,255 @@
+package generation;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import util.SchemaUtil;
+
+/**
+ * Generates schemas of a {@link SchemaFamily} with a given size. All references of generated
+ * schemas can be resolved offline. References to other files are relative and ids are only
+ * referenced within the same file.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaGenerator {
+  /**
+   * File name of the root schema of generated schemas.
+   */
+  public static final String ROOT_FILE_NAME = "root.json";
+  private static final String ID_BASE = "http://localhost/generated/";
+
+  private SchemaGenerator() {}
+
+  /**
+   * Generates a schema of <code>family</code>.
+   *
+   * @param family of schema.
+   * @param size of schema. Has to be at least 1.
+   * @return all files of generated schema mapped by their path relative to the directory they are
+   *         written to. The root schema is stored with <code>ROOT_FILE_NAME</code> and always comes
+   *         first.
+   */
+  public static Map<String, JsonObject> generate(SchemaFamily family, int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("size needs to be at least 1");
+    }
+
+    Map<String, JsonObject> files = new LinkedHashMap<>();
+
+    switch (family) {
+      case WIDE:
+        files.put(ROOT_FILE_NAME, wide(size));
+        break;
+      case DEEP:
+        files.put(ROOT_FILE_NAME, deep(size));
+        break;
+      case REF_CHAIN:
+        files.put(ROOT_FILE_NAME, refChain(size));
+        break;
+      case ID_SCOPED:
+        files.put(ROOT_FILE_NAME, idScoped(size));
+        break;
+      case DISTRIBUTED:
+        files.put(ROOT_FILE_NAME, ref(fileName(0) + "#/definitions/a"));
+        for (int i = 0; i < size; i++) {
+          files.put(fileName(i), distributedFile(i, size));
+        }
+        break;
+      case RECURSIVE:
+        files.put(ROOT_FILE_NAME, recursive(size));
+        break;
+      default:
+        throw new IllegalArgumentException("Unexpected value: " + family);
+    }
+
+    return files;
+  }
+
+  /**
+   * Generates a schema of <code>family</code> and writes all of its files to <code>dir</code>.
+   * Existing files are overwritten.
+   *
+   * @param family of schema.
+   * @param size of schema. Has to be at least 1.
+   * @param dir to write the files to. Is created if it does not exist.
+   * @return root schema.
+   * @throws IOException if a file cannot be written.
+   */
+  public static File write(SchemaFamily family, int size, File dir) throws IOException {
+    for (Map.Entry<String, JsonObject> file : generate(family, size).entrySet()) {
+      SchemaUtil.writeJsonToFile(file.getValue(), new File(dir, file.getKey()));
+    }
+
+    return new File(dir, ROOT_FILE_NAME);
+  }
+
+  private static JsonObject wide(int size) {
+    JsonObject definitions = new JsonObject();
+    JsonObject properties = new JsonObject();
+
+    for (int i = 0; i < size; i++) {
+      JsonObject name = new JsonObject();
+      name.addProperty("type", "string");
+      JsonObject value = new JsonObject();
+      value.addProperty("type", "integer");
+      value.addProperty("minimum", i);
+
+      JsonObject definitionProperties = new JsonObject();
+      definitionProperties.add("name", name);
+      definitionProperties.add("value", value);
+      JsonArray required = new JsonArray();
+      required.add("name");
+
+      JsonObject definition = new JsonObject();
+      definition.addProperty("type", "object");
+      definition.add("properties", definitionProperties);
+      definition.add("required", required);
+      definitions.add("d" + i, definition);
+      properties.add("p" + i, ref("#/definitions/d" + i));
+    }
+
+    JsonObject schema = new JsonObject();
+    schema.addProperty("type", "object");
+    schema.add("properties", properties);
+    schema.add("definitions", definitions);
+    return schema;
+  }
+
+  private static JsonObject deep(int size) {
+    JsonObject child = new JsonObject();
+    child.addProperty("type", "string");
+
+    for (int i = 0; i < size; i++) {
+      JsonObject properties = new JsonObject();
+      properties.add("child", child);
+      child = new JsonObject();
+      child.addProperty("type", "object");
+      child.add("properties", properties);
+    }
+
+    StringBuilder pointer = new StringBuilder("#");
+    for (int i = 0; i < size / 2; i++) {
+      pointer.append("/properties/child");
+    }
+
+    child.getAsJsonObject("properties").add("shortcut", ref(pointer.toString()));
+    return child;
+  }
+
+  private static JsonObject refChain(int size) {
+    JsonObject definitions = new JsonObject();
+
+    for (int i = 0; i < size - 1; i++) {
+      definitions.add("d" + i, ref("#/definitions/d" + (i + 1)));
+    }
+
+    JsonObject last = new JsonObject();
+    last.addProperty("type", "string");
+    definitions.add("d" + (size - 1), last);
+
+    JsonObject schema = ref("#/definitions/d0");
+    schema.add("definitions", definitions);
+    return schema;
+  }
+
+  private static JsonObject idScoped(int size) {
+    JsonObject definitions = new JsonObject();
+
+    for (int i = 0; i < size; i++) {
+      JsonObject x = new JsonObject();
+      x.addProperty("id", "#x");
+      x.addProperty("type", "string");
+      JsonObject scopeDefinitions = new JsonObject();
+      scopeDefinitions.add("x", x);
+
+      JsonObject properties = new JsonObject();
+      properties.add("x", ref("#x"));
+      if (i + 1 < size) {
+        properties.add("next", ref("../scope" + (i + 1) + "/#x"));
+      }
+
+      JsonObject scope = new JsonObject();
+      scope.addProperty("id", "scope" + i + "/");
+      scope.addProperty("type", "object");
+      scope.add("properties", properties);
+      scope.add("definitions", scopeDefinitions);
+      definitions.add("s" + i, scope);
+    }
+
+    JsonObject schema = new JsonObject();
+    schema.addProperty("id", ID_BASE + ROOT_FILE_NAME);
+    schema.add("definitions", definitions);
+    schema.addProperty("$ref", "#/definitions/s0");
+    return schema;
+  }
+
+  /**
+   * Files with an even index are in the directory itself, files with an odd index in its
+   * subdirectory <code>sub</code>.
+   */
+  private static String fileName(int i) {
+    return (i % 2 == 0 ? "" : "sub/") + "file" + i + ".json";
+  }
+
+  private static JsonObject distributedFile(int i, int size) {
+    JsonObject value = new JsonObject();
+    value.addProperty("type", "string");
+    JsonObject properties = new JsonObject();
+    properties.add("value", value);
+
+    if (i + 1 < size) {
+      String next = i % 2 == 0 ? fileName(i + 1) : "../" + fileName(i + 1);
+      properties.add("next", ref(next + "#/definitions/a"));
+    }
+
+    JsonObject a = new JsonObject();
+    a.addProperty("type", "object");
+    a.add("properties", properties);
+    JsonObject definitions = new JsonObject();
+    definitions.add("a", a);
+
+    JsonObject file = new JsonObject();
+    file.add("definitions", definitions);
+    return file;
+  }
+
+  private static JsonObject recursive(int size) {
+    JsonObject definitions = new JsonObject();
+
+    for (int i = 0; i < size; i++) {
+      JsonObject value = new JsonObject();
+      value.addProperty("type", "integer");
+      JsonObject children = new JsonObject();
+      children.addProperty("type", "array");
+      children.add("items", ref("#/definitions/d" + (i + 1) % size));
+
+      JsonObject properties = new JsonObject();
+      properties.add("value", value);
+      properties.add("children", children);
+
+      JsonObject definition = new JsonObject();
+      definition.addProperty("type", "object");
+      definition.add("properties", properties);
+      if (i + 1 < size) {
+        JsonArray anyOf = new JsonArray();
+        anyOf.add(ref("#/definitions/d" + (i + 1)));
+        definition.add("anyOf", anyOf);
+      }
+      definitions.add("d" + i, definition);
+    }
+
+    JsonObject schema = ref("#/definitions/d0");
+    schema.add("definitions", definitions);
+    return schema;
+  }
+
+  private static JsonObject ref(String ref) {
+    JsonObject object = new JsonObject();
+    object.addProperty("$ref", ref);
+    return object;
+  }
+}
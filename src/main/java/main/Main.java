@@ -1,19 +1,33 @@
 package main;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import analysis.Analyser;
 import analysis.DirNormalizer;
+import analysis.DirWatcher;
 import analysis.SchemaCorpus;
 import analysis.TestSuite;
 import dto.LoadSchemaDTO;
+import generation.SchemaFamily;
+import generation.SchemaGenerator;
 import model.normalization.RepositoryType;
 import org.apache.commons.csv.CSVRecord;
+import service.NdjsonProcessor;
+import service.SchemaServer;
+import service.SchemaService;
 import util.CSVUtil;
+import util.Log;
 
 /**
  * 
@@ -36,10 +50,44 @@ public class Main {
    *        marks will be needed. If -recursion is chosen, second parameter will be the path to the
    *        directory in which the normalized schemas are. These will be checked for recursion. If
    *        -stats is chosen, second parameter will be the path to the directory with unnormalized
-   *        schemas and third parameter the path to the directory with normalized schemas.
+   *        schemas and third parameter the path to the directory with normalized schemas. If
+   *        -watch is chosen, second and third parameter are -true | -false as for -normalize and
+   *        fourth parameter is the path to the directory to watch. Changed schemas and all schemas
+   *        depending on them are normalized and checked for recursion until the process is
+   *        stopped. --debounce=ms sets the quiet period after file events. If -serve is chosen,
+   *        second and third parameter are -true | -false as for -normalize. An HTTP server is
+   *        started on --port (default 8080) with --threads workers and --queue waiting requests. If
+   *        -ndjson is chosen, second and third parameter are -true | -false as for -normalize.
+   *        Schemas are read as JSON lines from stdin and results are written as JSON lines to
+   *        stdout in the same order, using --threads workers and at most --window pending lines.
+   *        If -generate is chosen, second parameter is the family of the schema (-wide | -deep |
+   *        -ref-chain | -id-scoped | -distributed | -recursive), third parameter its size and
+   *        fourth parameter the path to the directory it is written to. Options starting with
+   *        "--" can be added anywhere. If --incremental is added to -normalize, only schemas whose
+   *        content or dependencies have changed since the last run are normalized. If
+   *        --recursive is added to -normalize -normal or -recursion, schemas in subdirectories are
+   *        included. --max-millis, --max-definitions, --max-files and --max-depth limit the
+   *        resources of each schema for -normalize, -watch, -serve, -ndjson and -recursion.
+   *        Schemas exceeding a limit are aborted. If --compact is added to -normalize or -watch,
+   *        normalized schemas are written without whitespace. If --gzip is added to -normalize or
+   *        -watch, normalized schemas are written gzip-compressed, as are downloaded references in
+   *        the store for these and -serve and -ndjson. Compressed files are read transparently.
+   *        If --witness is added to -recursion, a witness cycle of definitions of each recursive
+   *        strongly connected component is written for each recursive schema. -recursion checks
+   *        schemas with --threads workers (default 1). If -recursion-unnormalized is chosen,
+   *        parameters are the same as for -pipeline. The schemas are checked for recursion like
+   *        with -recursion, but without normalizing them. It supports --recursive, --witness,
+   *        --threads, --gzip and the limits.
+   *        If -pipeline is chosen, second and third parameter are -true | -false as for -normalize
+   *        and fourth parameter is the path to the directory. Its schemas are normalized as with
+   *        -normalize -normal and analysed as with -stats in the same pass, without reading the
+   *        normalized schemas again. It supports the options of -normalize except --incremental.
    * @throws IOException
    */
   public static void main(String[] args) throws IOException {
+    Map<String, String> options = extractOptions(args);
+    args = removeOptions(args);
+
     if (args.length < 2) {
       throw new IllegalArgumentException("To less parameters");
     } else {
@@ -49,34 +97,126 @@ public class Main {
           boolean fetchSchemasOnline = Boolean.parseBoolean(args[3].substring(1));
           int l = args[1].equals("-corpus") ? 7 : 6;
           Map<String, String> linksToPermalinks = args.length < l ? null : extractLinksToPermalinks(new File(args[l - 1]));
-          LoadSchemaDTO config = new LoadSchemaDTO.Builder()
+          LoadSchemaDTO config = withLimits(new LoadSchemaDTO.Builder(), options)
               .allowDistributedSchemas(allowDistributedSchemas)
               .fetchSchemasOnline(fetchSchemasOnline)
               .addLinksToPermalinks(linksToPermalinks)
+              .compactOutput(options.containsKey("compact"))
+              .gzipOutput(options.containsKey("gzip"))
               .build();
+          boolean incremental = options.containsKey("incremental");
           switch (args[1]) {
             case "-corpus":
               SchemaCorpus corpus = new SchemaCorpus();
               config.setRepType(RepositoryType.CORPUS);
-              corpus.normalize(new File(args[4]), new File(args[5]), config);
+              corpus.normalize(new File(args[4]), new File(args[5]), config, incremental);
               break;
             case "-testsuite":
               TestSuite suite = new TestSuite();
               config.setRepType(RepositoryType.TESTSUITE);
-              suite.normalize(new File(args[4]), config);
+              suite.normalize(new File(args[4]), config, incremental);
               break;
             case "-normal":
-              DirNormalizer normalizer = new DirNormalizer();
+              DirNormalizer normalizer = new DirNormalizer(options.containsKey("recursive"));
               config.setRepType(RepositoryType.NORMAL);
-              normalizer.normalize(new File(args[4]), config);
+              normalizer.normalize(new File(args[4]), config, incremental);
               break;
             default:
               throw new IllegalArgumentException("Unexpected value: " + args[1]);
           }
           break;
+        case "-watch":
+          LoadSchemaDTO watchConfig = withLimits(new LoadSchemaDTO.Builder(), options)
+              .allowDistributedSchemas(Boolean.parseBoolean(args[1].substring(1)))
+              .fetchSchemasOnline(Boolean.parseBoolean(args[2].substring(1)))
+              .setRepType(RepositoryType.NORMAL)
+              .compactOutput(options.containsKey("compact"))
+              .gzipOutput(options.containsKey("gzip"))
+              .addLinksToPermalinks(
+                  args.length < 5 ? null : extractLinksToPermalinks(new File(args[4])))
+              .build();
+          long debounce = Long.parseLong(options.getOrDefault("debounce", "500"));
+          DirWatcher watcher = new DirWatcher(new File(args[3]), watchConfig, debounce);
+          watcher.watch();
+          break;
+        case "-serve":
+          LoadSchemaDTO serveConfig = withLimits(new LoadSchemaDTO.Builder(), options)
+              .allowDistributedSchemas(Boolean.parseBoolean(args[1].substring(1)))
+              .fetchSchemasOnline(Boolean.parseBoolean(args[2].substring(1)))
+              .setRepType(RepositoryType.NORMAL)
+              .gzipOutput(options.containsKey("gzip"))
+              .addLinksToPermalinks(
+                  args.length < 4 ? null : extractLinksToPermalinks(new File(args[3])))
+              .build();
+          int threads = Integer.parseInt(options.getOrDefault("threads",
+              String.valueOf(Runtime.getRuntime().availableProcessors())));
+          SchemaServer server =
+              new SchemaServer(Integer.parseInt(options.getOrDefault("port", "8080")), threads,
+                  Integer.parseInt(options.getOrDefault("queue", "64")),
+                  new SchemaService(serveConfig));
+          server.start();
+          break;
+        case "-ndjson":
+          LoadSchemaDTO ndjsonConfig = withLimits(new LoadSchemaDTO.Builder(), options)
+              .allowDistributedSchemas(Boolean.parseBoolean(args[1].substring(1)))
+              .fetchSchemasOnline(Boolean.parseBoolean(args[2].substring(1)))
+              .setRepType(RepositoryType.NORMAL)
+              .gzipOutput(options.containsKey("gzip"))
+              .addLinksToPermalinks(
+                  args.length < 4 ? null : extractLinksToPermalinks(new File(args[3])))
+              .build();
+          int ndjsonThreads = Integer.parseInt(options.getOrDefault("threads",
+              String.valueOf(Runtime.getRuntime().availableProcessors())));
+          NdjsonProcessor processor = new NdjsonProcessor(new SchemaService(ndjsonConfig),
+              ndjsonThreads, Integer.parseInt(options.getOrDefault("window",
+                  String.valueOf(4 * ndjsonThreads))));
+          try (BufferedReader in =
+              new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+              Writer out = new BufferedWriter(
+                  new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            processor.process(in, out);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          break;
+        case "-generate":
+          SchemaFamily family =
+              SchemaFamily.valueOf(args[1].substring(1).toUpperCase().replace('-', '_'));
+          File root = SchemaGenerator.write(family, Integer.parseInt(args[2]), new File(args[3]));
+          Log.info("Generated " + root.getPath());
+          break;
+        case "-pipeline":
+          LoadSchemaDTO pipelineConfig = withLimits(new LoadSchemaDTO.Builder(), options)
+              .allowDistributedSchemas(Boolean.parseBoolean(args[1].substring(1)))
+              .fetchSchemasOnline(Boolean.parseBoolean(args[2].substring(1)))
+              .setRepType(RepositoryType.NORMAL)
+              .compactOutput(options.containsKey("compact"))
+              .gzipOutput(options.containsKey("gzip"))
+              .addLinksToPermalinks(
+                  args.length < 5 ? null : extractLinksToPermalinks(new File(args[4])))
+              .build();
+          new Analyser(pipelineConfig).normalizeAndAnalyse(new File(args[3]), pipelineConfig,
+              options.containsKey("recursive"));
+          break;
         case "-recursion":
-          Analyser analyser1 = new Analyser();
-          analyser1.analyseRecursion(new File(args[1]));
+          Analyser analyser1 =
+              new Analyser(withLimits(new LoadSchemaDTO.Builder(), options).build(),
+                  Integer.parseInt(options.getOrDefault("threads", "1")));
+          analyser1.analyseRecursion(new File(args[1]), options.containsKey("recursive"),
+              options.containsKey("witness"));
+          break;
+        case "-recursion-unnormalized":
+          LoadSchemaDTO unnormalizedConfig = withLimits(new LoadSchemaDTO.Builder(), options)
+              .allowDistributedSchemas(Boolean.parseBoolean(args[1].substring(1)))
+              .fetchSchemasOnline(Boolean.parseBoolean(args[2].substring(1)))
+              .setRepType(RepositoryType.NORMAL)
+              .gzipOutput(options.containsKey("gzip"))
+              .addLinksToPermalinks(
+                  args.length < 5 ? null : extractLinksToPermalinks(new File(args[4])))
+              .build();
+          new Analyser(unnormalizedConfig, Integer.parseInt(options.getOrDefault("threads", "1")))
+              .analyseUnnormalizedRecursion(new File(args[3]), unnormalizedConfig,
+                  options.containsKey("recursive"), options.containsKey("witness"));
           break;
         case "-stats":
           Analyser analyser2 = new Analyser();
@@ -88,6 +228,51 @@ public class Main {
     }
   }
 
+  /**
+   * Sets the limits of the resources of each schema given in <code>options</code>. Limits which
+   * are not given stay 0, which means that the resource is not limited.
+   * 
+   * @param builder to set limits in.
+   * @param options mapped to their value.
+   * @return <code>builder</code>.
+   */
+  private static LoadSchemaDTO.Builder withLimits(LoadSchemaDTO.Builder builder,
+      Map<String, String> options) {
+    return builder
+        .setMaxMillis(Long.parseLong(options.getOrDefault("max-millis", "0")))
+        .setMaxDefinitions(Integer.parseInt(options.getOrDefault("max-definitions", "0")))
+        .setMaxLoadedFiles(Integer.parseInt(options.getOrDefault("max-files", "0")))
+        .setMaxDepth(Integer.parseInt(options.getOrDefault("max-depth", "0")));
+  }
+
+  /**
+   * Extracts all options of <code>args</code>. Options start with "--" and can have a value
+   * separated by "=", e.g. "--name=value".
+   * 
+   * @param args to extract options from.
+   * @return options mapped to their value. Options without value are mapped to an empty string.
+   */
+  private static Map<String, String> extractOptions(String[] args) {
+    Map<String, String> options = new HashMap<>();
+
+    for (String arg : args) {
+      if (arg.startsWith("--")) {
+        int separator = arg.indexOf('=');
+        if (separator == -1) {
+          options.put(arg.substring(2), "");
+        } else {
+          options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+      }
+    }
+
+    return options;
+  }
+
+  private static String[] removeOptions(String[] args) {
+    return Arrays.stream(args).filter(arg -> !arg.startsWith("--")).toArray(String[]::new);
+  }
+
   private static Map<String, String> extractLinksToPermalinks(File file) throws IOException {
     Map<String, String> linksToPermalinks = new HashMap<>();
     List<CSVRecord> records = CSVUtil.loadCSV(file, ',', false);
@@ -0,0 +1,90 @@
+package model;
+
+import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
+
+/**
+ * Resources a single schema may use while it is loaded, normalized and checked for recursion. The
+ * wall time is measured from the creation of the budget. Limits are taken from a
+ * <code>LoadSchemaDTO</code>, a limit of 0 means that the resource is not limited.
+ *
+ * @author Lukas Ellinger
+ */
+public class Budget {
+  /**
+   * Budget without any limits.
+   */
+  public static final Budget UNLIMITED = new Budget(0, 0, 0, 0);
+
+  private final long deadline;
+  private final long maxMillis;
+  private final int maxDefinitions;
+  private final int maxLoadedFiles;
+  private final int maxDepth;
+
+  /**
+   * Creates a budget with the limits of <code>config</code>. The wall time starts now.
+   *
+   * @param config of which the limits are taken.
+   */
+  public Budget(LoadSchemaDTO config) {
+    this(config.getMaxMillis(), config.getMaxDefinitions(), config.getMaxLoadedFiles(),
+        config.getMaxDepth());
+  }
+
+  private Budget(long maxMillis, int maxDefinitions, int maxLoadedFiles, int maxDepth) {
+    this.maxMillis = maxMillis;
+    this.deadline = System.nanoTime() + maxMillis * 1_000_000;
+    this.maxDefinitions = maxDefinitions;
+    this.maxLoadedFiles = maxLoadedFiles;
+    this.maxDepth = maxDepth;
+  }
+
+  /**
+   * Checks whether the wall time is exceeded.
+   *
+   * @throws BudgetExceededException if more than the maximum milliseconds have passed.
+   */
+  public void checkTime() {
+    if (maxMillis > 0 && System.nanoTime() - deadline > 0) {
+      throw new BudgetExceededException("Schema took more than " + maxMillis + " ms");
+    }
+  }
+
+  /**
+   * Checks whether <code>definitions</code> exceeds the maximum count of added definitions.
+   *
+   * @param definitions count of definitions added so far.
+   * @throws BudgetExceededException if <code>definitions</code> is greater than the maximum.
+   */
+  public void checkDefinitions(int definitions) {
+    if (maxDefinitions > 0 && definitions > maxDefinitions) {
+      throw new BudgetExceededException(
+          "Schema needs more than " + maxDefinitions + " added definitions");
+    }
+  }
+
+  /**
+   * Checks whether <code>loadedFiles</code> exceeds the maximum count of loaded files.
+   *
+   * @param loadedFiles count of loaded files including the one about to be loaded.
+   * @throws BudgetExceededException if <code>loadedFiles</code> is greater than the maximum.
+   */
+  public void checkLoadedFiles(int loadedFiles) {
+    if (maxLoadedFiles > 0 && loadedFiles > maxLoadedFiles) {
+      throw new BudgetExceededException("Schema loads more than " + maxLoadedFiles + " files");
+    }
+  }
+
+  /**
+   * Checks whether <code>depth</code> exceeds the maximum traversal depth.
+   *
+   * @param depth current traversal depth.
+   * @throws BudgetExceededException if <code>depth</code> is greater than the maximum.
+   */
+  public void checkDepth(int depth) {
+    if (maxDepth > 0 && depth > maxDepth) {
+      throw new BudgetExceededException("Schema is nested deeper than " + maxDepth);
+    }
+  }
+}
@@ -124,21 +124,19 @@ public class Pointer {
   }
 
   /**
-   * Recursive help method of <code>getPointerElement()</code>
+   * Help method of <code>getRefElement()</code>. Follows <code>pointer</code> level by level
+   * starting at <code>element</code>.
    */
   protected JsonElement getRecursivePointerElement(String pointer, JsonElement element) {
-    if (pointer.equals("#")) {
-      return element;
-    } else {
+    while (!pointer.equals("#")) {
       String currentLevel = pointer.substring(2);
       currentLevel = currentLevel.split("/")[0];
       pointer = StringUtils.replaceOnce(pointer, "/" + currentLevel, "");
       currentLevel = getUnescaped(currentLevel);
 
-      JsonElement child;
       if (element.isJsonObject()) {
         if (element.getAsJsonObject().has(currentLevel)) {
-          child = element.getAsJsonObject().get(currentLevel);
+          element = element.getAsJsonObject().get(currentLevel);
         } else {
           throw new InvalidFragmentException("No element referenced by " + ref);
         }
@@ -149,16 +147,16 @@ public class Pointer {
           if (element.getAsJsonArray().size() <= i) {
             throw new InvalidFragmentException("No element referenced by " + ref);
           }
-          child = element.getAsJsonArray().get(i);
+          element = element.getAsJsonArray().get(i);
         } catch (NumberFormatException e) {
           throw new InvalidFragmentException(ref + " includes array index. But index is no number");
         }
       } else {
         throw new InvalidFragmentException("No element referenced by " + ref);
       }
-
-      return getRecursivePointerElement(pointer, child);
     }
+
+    return element;
   }
 
   @Override
@@ -5,16 +5,15 @@ import java.net.URISyntaxException;
 import java.io.File;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Map.Entry;
 import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import event.RefResolutionEvent;
 import exception.InvalidFragmentException;
 import exception.InvalidIdentifierException;
 import model.Pointer;
-import util.SchemaUtil;
+import util.CanonicalURI;
 import util.URIUtil;
 
 /**
@@ -24,21 +23,30 @@ import util.URIUtil;
  */
 public class FilePointer extends Pointer {
   private SchemaFile schema;
+  // resolution scope of the object in which ref is. After resolving, scope of the closest object
+  // enclosing or being the referenced element.
+  private URI scope;
 
   /**
    * 
    * @param ref JSON-Reference
    * @param schema of where JSON-Reference is from.
+   * @param scope resolution scope of the object in which the JSON-Reference is.
    */
-  public FilePointer(URI ref, SchemaFile schema) {
+  public FilePointer(URI ref, SchemaFile schema, URI scope) {
     super(ref);
     this.schema = schema;
+    this.scope = scope;
   }
 
   public SchemaFile getSchema() {
     return schema;
   }
 
+  public URI getScope() {
+    return scope;
+  }
+
   /**
    * Checks whether the pointer references the root schema of the root file.
    * 
@@ -47,7 +55,8 @@ public class FilePointer extends Pointer {
   @Override
   public boolean referencesRoot() {
     return schema.isRootFile()
-        && (URIUtil.removeTrailingHash(schema.getResScope().resolve(ref)).equals(schema.getId())
+        && (CanonicalURI.of(scope).resolve(ref).withoutTrailingHash().toURI()
+            .equals(schema.getId())
             || ref.equals("#"));
   }
 
@@ -113,7 +122,7 @@ public class FilePointer extends Pointer {
     String path = Paths.get(URIUtil.getParentURI(schema.getRoot())).toString();
     Optional<Path> rootPath =
         Optional.ofNullable(Paths.get(path));
-    Path idPath = new File(schema.getResScope().getPath()).toPath();
+    Path idPath = new File(scope.getPath()).toPath();
 
     if (rootPath.isEmpty()) {
       if (idPath.toString().equals("")) {
@@ -137,18 +146,18 @@ public class FilePointer extends Pointer {
    */
   private String convertPointerToId() {
     Optional<String> schemeId = Optional.ofNullable(schema.getId().getScheme());
-    Optional<String> schemeRef = Optional.ofNullable(schema.getResScope().getScheme());
+    Optional<String> schemeRef = Optional.ofNullable(scope.getScheme());
     Optional<String> authorityId = Optional.ofNullable(schema.getId().getAuthority());
-    Optional<String> authorityRef = Optional.ofNullable(schema.getResScope().getAuthority());
+    Optional<String> authorityRef = Optional.ofNullable(scope.getAuthority());
 
     if (!schemeId.equals(schemeRef) || !authorityId.equals(authorityRef)) {
-      ref = schema.getResScope().toString();
+      ref = scope.toString();
     } else {
-      URI rel = URIUtil.getParentURI(schema.getId()).relativize(schema.getResScope());
+      URI rel = URIUtil.getParentURI(schema.getId()).relativize(scope);
       Optional<String> path = Optional.ofNullable(rel.getPath());
       Optional<String> fragment = Optional.ofNullable(rel.getFragment());
 
-      if (schema.getId().equals(URIUtil.removeFragment(schema.getResScope()))) {
+      if (schema.getId().equals(URIUtil.removeFragment(scope))) {
         ref = "";
       } else {
         ref = path.orElse("");
@@ -173,20 +182,39 @@ public class FilePointer extends Pointer {
    * @return referenced element.
    */
   public JsonElement getRefElement() {
-    String idToSearch = schema.getResScope().resolve(ref).toString();
-    schema.setResScopeToTopLevel();
-    JsonElement element = searchForId(idToSearch, schema.getObject());
+    RefResolutionEvent event = new RefResolutionEvent();
+    event.begin();
+    if (event.isEnabled()) {
+      event.ref = ref;
+      event.scope = scope.toString();
+      event.file = schema.getId().toString();
+    }
+
+    try {
+      JsonElement element = resolveRefElement();
+      event.resolved = true;
+      return element;
+    } finally {
+      if (event.isEnabled()) {
+        event.targetFile = schema.getId().toString();
+      }
+      event.commit();
+    }
+  }
+
+  private JsonElement resolveRefElement() {
+    String idToSearch = CanonicalURI.of(scope).resolve(ref).toString();
+    JsonElement element = searchForId(idToSearch);
     if (element != null) {
       return element;
     }
-    schema.oneScopeUp();
 
     updatePointer();
 
     if (ref.startsWith("#/") || ref.equals("#")) {
       return getRecursivePointerElement(ref, schema.getObject());
     } else {
-      JsonElement refElement = searchForId(ref, schema.getObject());
+      JsonElement refElement = searchForId(ref);
 
       if (refElement != null) {
         return refElement;
@@ -196,11 +224,12 @@ public class FilePointer extends Pointer {
     }
   }
 
+  /**
+   * {@inheritDoc} The resolution scope is set to the one of each object on the way.
+   */
   @Override
   protected JsonElement getRecursivePointerElement(String pointer, JsonElement element) {
-    if (pointer.equals("#")) {
-      return element;
-    } else {
+    while (!pointer.equals("#")) {
       String[] levels = pointer.split("/");
 
       if (levels.length == 3 && levels[0].equals("#") && levels[1].equals("definitions")) {
@@ -212,16 +241,11 @@ public class FilePointer extends Pointer {
       pointer = StringUtils.replaceOnce(pointer, "/" + currentLevel, "");
       currentLevel = getUnescaped(currentLevel);
 
-      JsonElement child;
       if (element.isJsonObject()) {
         JsonObject elementObj = element.getAsJsonObject();
         if (elementObj.has(currentLevel)) {
-          try {
-            schema.setResScope(SchemaUtil.getId(elementObj, schema.getDraft()));
-          } catch (URISyntaxException e) {
-            throw new InvalidIdentifierException(schema + " has an invalid identifier in it");
-          }
-          child = element.getAsJsonObject().get(currentLevel);
+          scope = schema.getScope(elementObj);
+          element = element.getAsJsonObject().get(currentLevel);
         } else {
           throw new InvalidFragmentException("No element referenced by " + ref);
         }
@@ -232,47 +256,79 @@ public class FilePointer extends Pointer {
           if (element.getAsJsonArray().size() <= i) {
             throw new InvalidFragmentException("No element referenced by " + ref);
           }
-          child = element.getAsJsonArray().get(i);
+          element = element.getAsJsonArray().get(i);
         } catch (NumberFormatException e) {
           throw new InvalidFragmentException(ref + " includes array index. But index is no number");
         }
       } else {
         throw new InvalidFragmentException("No element referenced by " + ref);
       }
-
-      return getRecursivePointerElement(pointer, child);
     }
+
+    return element;
   }
 
-  private JsonElement searchForId(String id, JsonElement element) {
-    if (element.isJsonObject()) {
-      return searchForId(id, element.getAsJsonObject());
-    } else if (element.isJsonArray()) {
-      return searchForId(id, element.getAsJsonArray());
-    } else {
-      return null;
+  /**
+   * Searches the schema of this in preorder for the schema identified by <code>id</code>. Only the
+   * objects of the {@link IdIndex} of the schema are checked, as all other objects have the
+   * resolution scope of their parent, which is checked before. If the schema is found, the
+   * resolution scope is set to the one of the found object.
+   * 
+   * @param id to search for.
+   * @return found schema. <code>null</code>, if there is none.
+   */
+  private JsonElement searchForId(String id) {
+    for (IdIndex.Node node : schema.getIdIndex().getNodes()) {
+      if (identifies(id, schema.getScope(node.object))) {
+        return matchId(id, node.object);
+      }
     }
+
+    return null;
   }
 
-  private JsonElement searchForId(String id, JsonObject object) {
-    URI objectId;
-    try {
-      objectId = SchemaUtil.getId(object, schema.getDraft());
-    } catch (URISyntaxException e) {
-      throw new InvalidIdentifierException(schema + " has an invalid identifier in it");
+  /**
+   * Checks whether an object with the resolution scope <code>scope</code> is identified by
+   * <code>id</code> or contains a JSON-Pointer of it. See {@link #matchId(String, JsonObject)}.
+   */
+  private static boolean identifies(String id, URI scope) {
+    CanonicalURI idURI = CanonicalURI.of(scope).resolve(id).withoutTrailingHash();
+    if (scope.equals(idURI.toURI())) {
+      return true;
+    }
+
+    if (scope.equals(idURI.withoutFragment().toURI())) {
+      String pointer = idURI.toURI().getFragment();
+      return pointer.startsWith("/") || pointer.equals("");
     }
-    schema.setResScope(objectId);
 
-    URI idURI = URIUtil.removeTrailingHash(schema.getResScope().resolve(id));
-    if (schema.getResScope().equals(idURI)) {
+    return false;
+  }
+
+  /**
+   * Sets the resolution scope to the one of <code>object</code> and checks whether
+   * <code>object</code> is identified by <code>id</code> or a JSON-Pointer within it.
+   * 
+   * @param id to search for.
+   * @param object to be checked.
+   * @return schema identified by <code>id</code>. <code>null</code>, if <code>id</code> does not
+   *         identify <code>object</code> or an element within it.
+   */
+  private JsonElement matchId(String id, JsonObject object) {
+    scope = schema.getScope(object);
+
+    CanonicalURI canonicalId = CanonicalURI.of(scope).resolve(id)
+        .withoutTrailingHash();
+    URI idURI = canonicalId.toURI();
+    if (scope.equals(idURI)) {
       if (idURI.equals(schema.getId())) {
         updatePointer();
       }
       return object;
     }
 
-    URI idURIWithoutFragment = URIUtil.removeFragment(idURI);
-    if (schema.getResScope().equals(idURIWithoutFragment)) {
+    URI idURIWithoutFragment = canonicalId.withoutFragment().toURI();
+    if (scope.equals(idURIWithoutFragment)) {
       String pointer = idURI.getFragment();
 
       if (pointer.startsWith("/") || pointer.equals("")) {
@@ -286,25 +342,6 @@ public class FilePointer extends Pointer {
       }
     }
 
-    for (Entry<String, JsonElement> entry : object.entrySet()) {
-      if (!(entry.getKey().equals("enum") && entry.getValue().isJsonArray())) {
-        JsonElement element = searchForId(id, entry.getValue());
-        if (element != null) {
-          return element;
-        }
-      }
-    }
-    schema.oneScopeUp();
-    return null;
-  }
-
-  private JsonElement searchForId(String id, JsonArray array) {
-    for (JsonElement jsonElement : array) {
-      JsonElement element = searchForId(id, jsonElement);
-      if (element != null) {
-        return element;
-      }
-    }
     return null;
   }
 
@@ -325,7 +362,11 @@ public class FilePointer extends Pointer {
         throw new InvalidIdentifierException(ref + " has an invalid identifier");
       }
 
-      schema = schema.getLoadedFile(identifier);
+      SchemaFile loaded = schema.getLoadedFile(scope, identifier);
+      if (loaded != schema) {
+        schema = loaded;
+        scope = schema.getRootScope();
+      }
     }
   }
 
@@ -0,0 +1,159 @@
+package model.normalization;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Objects of a schema which may open a resolution scope of their own. These are the root and all
+ * objects with an "id" or "$id", which are not within an "enum"-array. Each object is stored with
+ * its position in the schema, such that ids can be searched in preorder without traversing the
+ * whole schema.
+ *
+ * @author Lukas Ellinger
+ */
+public class IdIndex {
+  private final List<Node> nodes = new ArrayList<>();
+  private boolean sorted = true;
+
+  /**
+   * Creates the index of an already parsed schema.
+   *
+   * @param object root of the schema.
+   * @return index of <code>object</code>.
+   */
+  public static IdIndex of(JsonObject object) {
+    IdIndex index = new IdIndex();
+    Deque<Frame> stack = new ArrayDeque<>();
+    int objects = 0;
+    stack.push(new Frame(object, objects++, 1));
+
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+
+      if (frame.entries != null && frame.entries.hasNext()) {
+        Entry<String, JsonElement> entry = frame.entries.next();
+        if (!(entry.getKey().equals("enum") && entry.getValue().isJsonArray())) {
+          objects = push(entry.getValue(), frame.depth, objects, stack);
+        }
+      } else if (frame.elements != null && frame.elements.hasNext()) {
+        objects = push(frame.elements.next(), frame.depth, objects, stack);
+      } else {
+        stack.pop();
+        if (frame.object != null && (frame.depth == 1 || hasId(frame.object))) {
+          index.add(frame.object, frame.begin, objects - 1, frame.depth);
+        }
+      }
+    }
+
+    return index;
+  }
+
+  private static int push(JsonElement element, int depth, int objects, Deque<Frame> stack) {
+    if (element.isJsonObject()) {
+      stack.push(new Frame(element.getAsJsonObject(), objects, depth + 1));
+      return objects + 1;
+    } else if (element.isJsonArray()) {
+      stack.push(new Frame(element.getAsJsonArray().iterator(), depth));
+    }
+    return objects;
+  }
+
+  /**
+   * Checks whether <code>object</code> has an "id" or "$id", which may change the resolution
+   * scope. Which of both is used depends on the draft.
+   *
+   * @param object to be checked.
+   * @return <code>true</code>, if <code>object</code> has a primitive "id" or "$id".
+   */
+  static boolean hasId(JsonObject object) {
+    return (object.has("id") && object.get("id").isJsonPrimitive())
+        || (object.has("$id") && object.get("$id").isJsonPrimitive());
+  }
+
+  /**
+   * Adds <code>object</code> to this. Objects may be added in any order.
+   *
+   * @param object to be added.
+   * @param begin position of <code>object</code> in preorder of all objects of the schema.
+   * @param end position of the last object within <code>object</code> in preorder.
+   * @param depth count of objects from the root to <code>object</code>, both included.
+   */
+  void add(JsonObject object, int begin, int end, int depth) {
+    if (!nodes.isEmpty() && nodes.get(nodes.size() - 1).begin > begin) {
+      sorted = false;
+    }
+    nodes.add(new Node(object, begin, end, depth));
+  }
+
+  /**
+   * Gets all stored objects in preorder.
+   *
+   * @return stored objects in preorder.
+   */
+  List<Node> getNodes() {
+    if (!sorted) {
+      nodes.sort(Comparator.comparingInt(node -> node.begin));
+      sorted = true;
+    }
+    return nodes;
+  }
+
+  /**
+   * Object of a schema with its position.
+   */
+  static class Node {
+    final JsonObject object;
+    final int begin;
+    final int end;
+    final int depth;
+
+    Node(JsonObject object, int begin, int end, int depth) {
+      this.object = object;
+      this.begin = begin;
+      this.end = end;
+      this.depth = depth;
+    }
+
+    /**
+     * Checks whether <code>other</code> is within the object of this.
+     */
+    boolean contains(Node other) {
+      return begin < other.begin && other.begin <= end;
+    }
+  }
+
+  /**
+   * Object or array whose children are indexed.
+   */
+  private static class Frame {
+    private final JsonObject object;
+    private final Iterator<Entry<String, JsonElement>> entries;
+    private final Iterator<JsonElement> elements;
+    private final int begin;
+    // count of objects from the root to this, both included
+    private final int depth;
+
+    Frame(JsonObject object, int begin, int depth) {
+      this.object = object;
+      this.entries = object.entrySet().iterator();
+      this.elements = null;
+      this.begin = begin;
+      this.depth = depth;
+    }
+
+    Frame(Iterator<JsonElement> elements, int depth) {
+      this.object = null;
+      this.entries = null;
+      this.elements = elements;
+      this.begin = -1;
+      this.depth = depth;
+    }
+  }
+}
@@ -4,15 +4,25 @@ import java.io.File;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.AbstractMap;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import dto.LoadSchemaDTO;
+import event.NormalizationEvent;
+import exception.BudgetExceededException;
 import exception.InvalidIdentifierException;
+import model.Budget;
+import util.Metrics;
 import util.SchemaUtil;
 import util.URIUtil;
 
@@ -24,6 +34,15 @@ import util.URIUtil;
  */
 public class Normalizer {
   private SchemaFile rootSchema;
+  private int depth;
+  private int maxDepth;
+  private Budget budget;
+  // objects in subschemas which have an id and are not within an "enum"
+  private List<JsonObject> withIds;
+  // elements which are not within an "enum" and whose ids therefore get removed
+  private Set<JsonElement> stripped;
+  // elements which were not entered, because an equal element was visited before
+  private List<JsonElement> skipped;
 
   /**
    * 
@@ -31,7 +50,17 @@ public class Normalizer {
    * @param config of how schema should be loaded.
    */
   public Normalizer(File file, LoadSchemaDTO config) {
-    rootSchema = new SchemaFile(file, config);
+    this(file, config, null);
+  }
+
+  /**
+   * 
+   * @param file which should be normalized.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public Normalizer(File file, LoadSchemaDTO config, SchemaCache cache) {
+    rootSchema = new SchemaFile(file, config, cache);
   }
 
   /**
@@ -41,7 +70,41 @@ public class Normalizer {
    * @param config of how schema should be loaded.
    */
   public Normalizer(File file, URI id, LoadSchemaDTO config) {
-    rootSchema = new SchemaFile(file, id, config);
+    this(file, id, config, null);
+  }
+
+  /**
+   * 
+   * @param file which should be normalized
+   * @param id location of where the file is from. Is used as id if no id is declared in the schema.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public Normalizer(File file, URI id, LoadSchemaDTO config, SchemaCache cache) {
+    rootSchema = new SchemaFile(file, id, config, cache);
+  }
+
+  /**
+   * 
+   * @param schema which should be normalized. Is not altered.
+   * @param id location of where the schema is from. Is used as id if no id is declared in the
+   *        schema.
+   * @param config of how schema should be loaded.
+   */
+  public Normalizer(JsonObject schema, URI id, LoadSchemaDTO config) {
+    this(schema, id, config, null);
+  }
+
+  /**
+   * 
+   * @param schema which should be normalized. Is not altered.
+   * @param id location of where the schema is from. Is used as id if no id is declared in the
+   *        schema.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public Normalizer(JsonObject schema, URI id, LoadSchemaDTO config, SchemaCache cache) {
+    rootSchema = new SchemaFile(schema, id, config, cache);
   }
 
   public SchemaFile getRootSchema() {
@@ -56,10 +119,38 @@ public class Normalizer {
    * Normalizes the stored schema and also returns it.
    * 
    * @return normalized schema.
+   * @throws BudgetExceededException if the schema exceeds the budget of its config.
    */
   public JsonObject normalize() {
+    NormalizationEvent event = new NormalizationEvent();
+    event.begin();
     List<Entry<String, JsonElement>> defsList = new ArrayList<Entry<String, JsonElement>>();
-    traverseTree(rootSchema.getObject(), defsList, rootSchema);
+    depth = 0;
+    maxDepth = 0;
+    budget = rootSchema.getBudget();
+    withIds = new ArrayList<>();
+    stripped = Collections.newSetFromMap(new IdentityHashMap<>());
+    skipped = new ArrayList<>();
+    long start = Metrics.start();
+    try {
+      traverseTree(rootSchema.getObject(), defsList, rootSchema);
+    } catch (RuntimeException e) {
+      event.error = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      Metrics.stop(Metrics.TRAVERSE, start);
+      if (event.isEnabled()) {
+        event.schema = rootSchema.getId().toString();
+        event.loadedFiles = rootSchema.getLoadedFiles().size();
+        event.addedDefinitions = defsList.size();
+        event.visitedNodes = rootSchema.getVisitedCount();
+        event.maxDepth = maxDepth;
+      }
+      event.commit();
+    }
+    Metrics.record("addedDefinitions", defsList.size());
+    Metrics.record("maxDepth", maxDepth);
+    Metrics.record("visitedNodes", rootSchema.getVisitedCount());
 
     JsonObject defs = SchemaUtil.getDefinitions(rootSchema.getObject());
     for (Entry<String, JsonElement> entry : defsList) {
@@ -71,111 +162,188 @@ public class Normalizer {
         rootSchema.getObject().add("definitions", defs);
       }
     }
-    SchemaUtil.removeIds(rootSchema.getObject());
+    removeIds();
     return rootSchema.getObject();
   }
 
   /**
    * Traverses <code>element</code> in preorder. <code>element</code> is the root. While traversing
    * references are normalized. All <code>JsonElements</code> which therefore need to be added to
-   * the "definitions"-section are stored in <code>defList</code>.
+   * the "definitions"-section are stored in <code>defList</code>. An explicit stack is used instead
+   * of recursion, such that deeply nested schemas can be traversed with the default stack size.
    * 
    * @param element root of the schema-tree.
    * @param defsList all <code>JsonElements</code> which need to be added to the
-   *        "definitions"-section get stored in it. May be empty at the beginning. Gets filled
-   *        recursively.
+   *        "definitions"-section get stored in it. May be empty at the beginning.
    * @param schema in which current File and corresponding <code>JsonObject</code> with additional
    *        information are stored.
    */
   private void traverseTree(JsonElement element, List<Entry<String, JsonElement>> defsList,
       SchemaFile schema) {
+    Deque<Frame> stack = new ArrayDeque<>();
+    enter(element, schema, schema.getRootScope(), false, stack);
+
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+
+      if (frame.entries != null && frame.entries.hasNext()) {
+        Entry<String, JsonElement> entry = frame.entries.next();
+        if (!(entry.getKey().equals("enum") && entry.getValue().isJsonArray())) {
+          if (entry.getValue().isJsonPrimitive() && entry.getKey().equals("$ref")) {
+            normalizeRef(entry, defsList, frame.schema, frame.scope, stack);
+          } else {
+            enter(entry.getValue(), frame.schema, frame.scope,
+                frame.keepIds || entry.getKey().equals("enum"), stack);
+          }
+        }
+      } else if (frame.elements != null && frame.elements.hasNext()) {
+        enter(frame.elements.next(), frame.schema, frame.scope, frame.keepIds, stack);
+      } else {
+        stack.pop();
+        depth--;
+      }
+    }
+  }
+
+  /**
+   * Removes the ids in subschemas of the normalized schema. Instead of walking the whole schema
+   * again, only the objects with ids found while traversing are changed. Elements which were not
+   * entered, because an equal element was visited before, are walked, if they have not been
+   * entered at another place.
+   */
+  private void removeIds() {
+    for (JsonObject object : withIds) {
+      SchemaUtil.removeIdInElement(object);
+    }
+
+    for (JsonElement element : skipped) {
+      if (!stripped.contains(element)) {
+        SchemaUtil.removeAllIds(element);
+      }
+    }
+  }
+
+  /**
+   * Enters <code>element</code>, if it has not been visited yet. Objects and arrays are pushed on
+   * <code>stack</code>, such that their children are traversed next. Objects are traversed with
+   * their own resolution scope, arrays with the one of their enclosing object.
+   * 
+   * @param element to be entered.
+   * @param schema in which <code>element</code> is.
+   * @param scope resolution scope of the object enclosing <code>element</code>.
+   * @param keepIds <code>true</code>, if <code>element</code> is within an "enum" and its ids
+   *        therefore must not be removed.
+   * @param stack of objects and arrays whose children are traversed.
+   */
+  private void enter(JsonElement element, SchemaFile schema, URI scope, boolean keepIds,
+      Deque<Frame> stack) {
     // elements should not be visited twice
-    if (!schema.alreadyVisited(element)) {
+    if (schema.alreadyVisited(element)) {
+      if (!keepIds) {
+        skipped.add(element);
+      }
+    } else {
+      maxDepth = Math.max(maxDepth, ++depth);
+      budget.checkDepth(depth);
+      budget.checkTime();
       if (element.isJsonObject()) {
-        traverseObject(element.getAsJsonObject(), defsList, schema);
+        JsonObject object = element.getAsJsonObject();
+        schema.addVisited(object);
+        if (!keepIds) {
+          stripped.add(object);
+          if (object != rootSchema.getObject() && (object.has("$id") || object.has("id"))) {
+            withIds.add(object);
+          }
+        }
+        stack.push(new Frame(object, schema, schema.getScope(object), keepIds));
       } else if (element.isJsonArray()) {
-        traverseArray(element.getAsJsonArray(), defsList, schema);
+        schema.addVisited(element);
+        if (!keepIds) {
+          stripped.add(element);
+        }
+        stack.push(new Frame(element.getAsJsonArray(), schema, scope, keepIds));
+      } else {
+        depth--;
       }
     }
   }
 
   /**
-   * Traverses all children of <code>object</code>. While traversing references are normalized. All
-   * <code>JsonElements</code> which therefore need to be added to the "definitions"
-   * <code>JsonElement</code> are stored in <code>defList</code>.
+   * Normalizes the reference in <code>entry</code>. If the referenced element needs to be added to
+   * the "definitions"-section, it is stored in <code>defsList</code> and entered.
    * 
-   * @param object current node.
+   * @param entry with key "$ref".
    * @param defsList all <code>JsonElements</code> which need to be added to the "definitions"
-   *        <code>JsonElement</code> get stored in it. May be empty at the beginning. Gets filled
-   *        recursively.
-   * @param schema in which current File and corresponding <code>JsonObject</code> with additional
-   *        information are stored.
+   *        <code>JsonElement</code> get stored in it.
+   * @param schema in which <code>entry</code> is.
+   * @param scope resolution scope of the object in which <code>entry</code> is.
+   * @param stack of objects and arrays whose children are traversed.
    */
-  private void traverseObject(JsonObject object, List<Entry<String, JsonElement>> defsList,
-      SchemaFile schema) {
-    schema.addVisited(object);
+  private void normalizeRef(Entry<String, JsonElement> entry,
+      List<Entry<String, JsonElement>> defsList, SchemaFile schema, URI scope,
+      Deque<Frame> stack) {
+    String refString = entry.getValue().getAsString();
+    URI ref;
     try {
-      schema.setResScope(SchemaUtil.getId(object, schema.getDraft()));
+      ref = URIUtil.toURI(refString);
     } catch (URISyntaxException e) {
-      throw new InvalidIdentifierException(schema + " has an identifier which is not a valid URI");
+      throw new InvalidIdentifierException(
+          schema + " has a reference which is not a valid URI: " + refString);
     }
+    FilePointer pointer = new FilePointer(ref, schema, scope);
 
-    for (Entry<String, JsonElement> entry : object.entrySet()) {
-      if (!(entry.getKey().equals("enum") && entry.getValue().isJsonArray())) {
-        if (entry.getValue().isJsonPrimitive() && entry.getKey().equals("$ref")) {
-          String refString = entry.getValue().getAsString();
-          URI ref;
-          try {
-            ref = URIUtil.toURI(refString);
-          } catch (URISyntaxException e) {
-            throw new InvalidIdentifierException(
-                schema + " has a reference which is not a valid URI: " + refString);
-          }
-          FilePointer pointer = new FilePointer(ref, schema);
-
-          JsonElement refElement = pointer.getRefElement();
-          if (!pointer.referencesDefChild()) {
-            if (!pointer.referencesRoot()) {
-              String convertedPointer = pointer.convertPointer();
-              convertedPointer = FilePointer.getUnescaped(convertedPointer);
-              entry.setValue(new JsonPrimitive("#/definitions/" + convertedPointer));
-
-              Entry<String, JsonElement> defsEntry =
-                  new AbstractMap.SimpleEntry<>(convertedPointer, refElement);
-              defsList.add(defsEntry);
-
-              traverseTree(refElement, defsList, pointer.getSchema());
-            } else {
-              entry.setValue(new JsonPrimitive("#"));
-            }
-          } else {
-            entry.setValue(new JsonPrimitive(pointer.getRef()));
-          }
-        } else {
-          traverseTree(entry.getValue(), defsList, schema);
-        }
+    long start = Metrics.start();
+    JsonElement refElement;
+    try {
+      refElement = pointer.getRefElement();
+    } finally {
+      Metrics.stop(Metrics.RESOLVE_REF, start);
+    }
+    if (!pointer.referencesDefChild()) {
+      if (!pointer.referencesRoot()) {
+        String convertedPointer = pointer.convertPointer();
+        convertedPointer = FilePointer.getUnescaped(convertedPointer);
+        entry.setValue(new JsonPrimitive("#/definitions/" + convertedPointer));
+
+        Entry<String, JsonElement> defsEntry =
+            new AbstractMap.SimpleEntry<>(convertedPointer, refElement);
+        defsList.add(defsEntry);
+        budget.checkDefinitions(defsList.size());
+
+        enter(refElement, pointer.getSchema(), pointer.getScope(), false, stack);
+      } else {
+        entry.setValue(new JsonPrimitive("#"));
       }
+    } else {
+      entry.setValue(new JsonPrimitive(pointer.getRef()));
     }
-    schema.oneScopeUp();
   }
 
   /**
-   * Traverses all elements of <code>array</code>. While traversing references are normalized. All
-   * <code>JsonElements</code> which therefore need to be added to the "definitions"
-   * <code>JsonElement</code> are stored in <code>defList</code>.
-   * 
-   * @param array current node.
-   * @param defsList all <code>JsonElements</code> which need to be added to the "definitions"
-   *        <code>JsonElement</code> get stored in it. May be empty at the beginning. Gets filled
-   *        recursively.
-   * @param schema in which current File and corresponding <code>JsonObject</code> with additional
-   *        information are stored.
+   * Object or array whose children are traversed.
    */
-  private void traverseArray(JsonArray array, List<Entry<String, JsonElement>> defsList,
-      SchemaFile schema) {
-    schema.addVisited(array);
-    for (JsonElement element : array) {
-      traverseTree(element, defsList, schema);
+  private static class Frame {
+    private final SchemaFile schema;
+    // resolution scope of the object or of the object enclosing the array
+    private final URI scope;
+    private final Iterator<Entry<String, JsonElement>> entries;
+    private final Iterator<JsonElement> elements;
+    private final boolean keepIds;
+
+    Frame(JsonObject object, SchemaFile schema, URI scope, boolean keepIds) {
+      this.schema = schema;
+      this.scope = scope;
+      this.keepIds = keepIds;
+      this.entries = object.entrySet().iterator();
+      this.elements = null;
+    }
+
+    Frame(JsonArray array, SchemaFile schema, URI scope, boolean keepIds) {
+      this.schema = schema;
+      this.scope = scope;
+      this.keepIds = keepIds;
+      this.entries = null;
+      this.elements = array.iterator();
     }
   }
 }
@@ -0,0 +1,122 @@
+package model.normalization;
+
+import java.io.File;
+import java.net.URI;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gson.JsonObject;
+import model.Draft;
+
+/**
+ * Keeps loaded schemas by the <code>URI</code> they were loaded from, such that they can be used
+ * by several <code>SchemaStores</code> one after another without being read again. One instance
+ * can be used by multiple threads at the same time. Each store gets a copy of a kept schema, as
+ * schemas are altered while normalizing. A kept schema of a local file is dropped once the file
+ * has been modified. As this is only noticed by its modification time and length, callers which
+ * know of changes should invalidate the <code>URIs</code> themselves.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaCache {
+  private final Cache<URI, Loaded> schemas;
+
+  /**
+   *
+   * @param maximumSize count of schemas which are kept at most.
+   */
+  public SchemaCache(long maximumSize) {
+    schemas = CacheBuilder.newBuilder().maximumSize(maximumSize).build();
+  }
+
+  /**
+   * Gets the schema loaded from <code>location</code>.
+   *
+   * @param location from which the schema was loaded.
+   * @return loaded schema or <code>null</code>, if none is kept or its file has been modified.
+   */
+  Loaded get(URI location) {
+    Loaded loaded = schemas.getIfPresent(location);
+
+    if (loaded != null && !loaded.stamp.equals(stamp(location))) {
+      schemas.invalidate(location);
+      return null;
+    }
+    return loaded;
+  }
+
+  /**
+   * Keeps a copy of <code>object</code> as schema loaded from <code>location</code>.
+   *
+   * @param location from which <code>object</code> was loaded.
+   * @param object loaded schema. Is not altered.
+   * @param draft of <code>object</code>.
+   * @param rows of <code>object</code>, see {@link SchemaFile#getRows()}.
+   * @param stamp of <code>location</code> before it was read, see {@link #stamp(URI)}.
+   */
+  void put(URI location, JsonObject object, Draft draft, int rows, String stamp) {
+    schemas.put(location, new Loaded(object.deepCopy(), draft, rows, stamp));
+  }
+
+  /**
+   * Drops the schema loaded from <code>location</code>, e.g. because its content has changed.
+   *
+   * @param location from which the schema was loaded.
+   */
+  public void invalidate(URI location) {
+    schemas.invalidate(location);
+  }
+
+  /**
+   * Drops all kept schemas.
+   */
+  public void invalidateAll() {
+    schemas.invalidateAll();
+  }
+
+  /**
+   * Gets a stamp of the content at <code>location</code>, which changes if a local file is
+   * modified.
+   *
+   * @param location of a schema.
+   * @return stamp of the file at <code>location</code>. Empty, if <code>location</code> is no
+   *         local file.
+   */
+  static String stamp(URI location) {
+    if (!"file".equals(location.getScheme())) {
+      return "";
+    }
+
+    try {
+      File file = new File(location);
+      return file.lastModified() + "/" + file.length();
+    } catch (IllegalArgumentException e) {
+      return "";
+    }
+  }
+
+  /**
+   * Schema as it was loaded.
+   */
+  static class Loaded {
+    private final JsonObject object;
+    final Draft draft;
+    final int rows;
+    private final String stamp;
+
+    private Loaded(JsonObject object, Draft draft, int rows, String stamp) {
+      this.object = object;
+      this.draft = draft;
+      this.rows = rows;
+      this.stamp = stamp;
+    }
+
+    /**
+     * Gets a copy of the loaded schema, which may be altered.
+     *
+     * @return copy of the loaded schema.
+     */
+    JsonObject copy() {
+      return object.deepCopy();
+    }
+  }
+}
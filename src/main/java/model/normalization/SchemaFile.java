@@ -4,21 +4,30 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Objects;
 import java.util.Set;
-import java.util.Stack;
 import java.util.stream.Collectors;
 
 import com.google.gson.*;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import dto.LoadSchemaDTO;
+import event.SchemaLoadEvent;
 import exception.InvalidIdentifierException;
 import exception.StoreException;
+import model.Budget;
 import model.Draft;
+import util.CanonicalURI;
+import util.Metrics;
 import util.SchemaUtil;
 import util.Store;
 import util.URIUtil;
@@ -36,8 +45,12 @@ public class SchemaFile {
   private URI locatedAt;
   private JsonObject object;
   private SchemaStore store;
-  private Stack<URI> resScope = new Stack<>();
+  // resolution scope of each object within object, see indexScopes()
+  private Map<JsonObject, URI> scopes;
   private Draft draft;
+  private IdIndex idIndex;
+  // rows of the read schema pretty printed by Gson, -1 if it was not read from text
+  private int rows = -1;
 
   /**
    * Creates a new <code>SchemaFile</code>. The stored <code>SchemaStore</code> is initialized with
@@ -47,11 +60,23 @@ public class SchemaFile {
    * @param config of how schema should be loaded.
    */
   public SchemaFile(File file, LoadSchemaDTO config) {
+    this(file, config, null);
+  }
+
+  /**
+   * Creates a new <code>SchemaFile</code> like {@link #SchemaFile(File, LoadSchemaDTO)}, whose
+   * store takes loaded schemas from <code>cache</code>.
+   * 
+   * @param file of which the <code>SchemaFile</code> should be created.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public SchemaFile(File file, LoadSchemaDTO config, SchemaCache cache) {
     locatedAt = file.toURI();
-    store = new SchemaStore(config);
+    store = new SchemaStore(config, cache);
     loadJsonObject(locatedAt);
-    draft = SchemaUtil.getDraft(object);
     setIdFromSchema();
+    indexScopes();
     store.addRootSchemaFile(this);
   }
 
@@ -64,8 +89,8 @@ public class SchemaFile {
     locatedAt = id;
     this.store = store;
     loadJsonObject(locatedAt);
-    draft = SchemaUtil.getDraft(object);
     setIdFromSchema();
+    indexScopes();
   }
 
   /**
@@ -75,11 +100,57 @@ public class SchemaFile {
    * @param config of how schema should be loaded.
    */
   public SchemaFile(File file, URI id, LoadSchemaDTO config) {
+    this(file, id, config, null);
+  }
+
+  /**
+   * Creates a new <code>SchemaFile</code> like {@link #SchemaFile(File, URI, LoadSchemaDTO)},
+   * whose store takes loaded schemas from <code>cache</code>.
+   * 
+   * @param file of which the <code>SchemaFile</code> should be created.
+   * @param id location of where the file is from.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public SchemaFile(File file, URI id, LoadSchemaDTO config, SchemaCache cache) {
     locatedAt = id;
-    store = new SchemaStore(config);
+    store = new SchemaStore(config, cache);
     loadJsonObject(file.toURI());
-    draft = SchemaUtil.getDraft(object);
     setIdFromSchema();
+    indexScopes();
+    store.addRootSchemaFile(this);
+  }
+
+  /**
+   * Creates a new <code>SchemaFile</code> of an already parsed schema. The stored
+   * <code>SchemaStore</code> is initialized with this.
+   * 
+   * @param object parsed schema. Is not altered.
+   * @param id location of where the schema is from. Is used as id if no id is declared in the
+   *        schema.
+   * @param config of how schema should be loaded.
+   */
+  public SchemaFile(JsonObject object, URI id, LoadSchemaDTO config) {
+    this(object, id, config, null);
+  }
+
+  /**
+   * Creates a new <code>SchemaFile</code> of an already parsed schema like
+   * {@link #SchemaFile(JsonObject, URI, LoadSchemaDTO)}, whose store takes loaded schemas from
+   * <code>cache</code>.
+   * 
+   * @param object parsed schema. Is not altered.
+   * @param id location of where the schema is from.
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public SchemaFile(JsonObject object, URI id, LoadSchemaDTO config, SchemaCache cache) {
+    locatedAt = id;
+    store = new SchemaStore(config, cache);
+    this.object = convert(object.deepCopy());
+    idIndex = IdIndex.of(this.object);
+    setIdFromSchema();
+    indexScopes();
     store.addRootSchemaFile(this);
   }
 
@@ -92,35 +163,70 @@ public class SchemaFile {
   }
 
   private void loadJsonObject(URI location) {
-    Gson gson = new Gson();
+    SchemaLoadEvent event = new SchemaLoadEvent();
+    event.begin();
+    long start = Metrics.start();
+    try {
+      SchemaCache cache = store.getCache();
+      SchemaCache.Loaded loaded = cache == null ? null : cache.get(location);
+      if (loaded != null) {
+        object = loaded.copy();
+        draft = loaded.draft;
+        rows = loaded.rows;
+        idIndex = IdIndex.of(object);
+        event.source = "cache";
+      } else if (cache != null) {
+        String stamp = SchemaCache.stamp(location);
+        readJsonObject(location, event);
+        cache.put(location, object, draft, rows, stamp);
+      } else {
+        readJsonObject(location, event);
+      }
+      Metrics.increment("loadedFiles");
+      event.loaded = true;
+    } finally {
+      Metrics.stop(Metrics.LOAD, start);
+      event.uri = location.toString();
+      event.commit();
+    }
+  }
 
+  private void readJsonObject(URI location, SchemaLoadEvent event) {
     try {
       try {
         if (location.getScheme().equals("file")) {
-          object = gson.fromJson(URLLoader.loadWithRedirect(location.toURL()), JsonObject.class);
-          object = convertPointersAndDefinitions(object).getAsJsonObject();
+          parse(URLLoader.loadWithRedirect(location.toURL()), "file", event);
         } else {
           object = Store.getSchema(location); 
+          draft = SchemaUtil.getDraft(object);
+          idIndex = IdIndex.of(object);
+          if (event.isEnabled()) {
+            event.source = "store";
+            event.bytes = Store.getFile(location).length();
+          }
         }
       } catch (StoreException e) {
 
         if (store.isFetchSchemasOnline()) {
           try {
-            if (location.getScheme().matches("https?") && store.hasPermalink(location)) {
+            String permalink = location.getScheme().matches("https?")
+                ? store.findPermalink(location) : null;
+            if (permalink != null) {
               String scheme = location.getScheme();
               String authority = location.getAuthority();
-              location = new URI(scheme, authority, store.getPermalink(location).substring(scheme.length() + 3 + authority.length()),
-                      location.getQuery(), location.getFragment());
+              location = new URI(scheme, authority,
+                  permalink.substring(scheme.length() + 3 + authority.length()),
+                  location.getQuery(), location.getFragment());
             }
           } catch (URISyntaxException ex) {
             throw new InvalidIdentifierException(location + " is no valid URI");
           }
 
-          object = gson.fromJson(URLLoader.loadWithRedirect(location.toURL()), JsonObject.class);
-          object = convertPointersAndDefinitions(object).getAsJsonObject();
+          SchemaParser parser = parse(URLLoader.loadWithRedirect(location.toURL()),
+              location.getScheme(), event);
 
           if (!location.getScheme().equals("file")) {
-            Store.storeSchema(object, location);
+            Store.storeSchema(object, location, parser.getRefSites(), store.isGzipOutput());
           } 
         } else {
           throw e;
@@ -131,18 +237,16 @@ public class SchemaFile {
         if (store.getRepType().equals(RepositoryType.TESTSUITE)) {
           File file = new File(
               location.toString().replace("http://localhost:1234/", TESTSUITE_REMOTES_DIR));
-          object = gson.fromJson(FileUtils.readFileToString(file, "UTF-8"), JsonObject.class);
-          object = convertPointersAndDefinitions(object).getAsJsonObject();
+          parse(FileUtils.readFileToString(file, "UTF-8"), "testsuite", event);
         } else if (store.getRepType().equals(RepositoryType.CORPUS)) {
           try {
             URI locationRaw = new URI(location.getScheme(), location.getAuthority(),
                 location.getPath(), "raw=true", location.getFragment());
-            object =
-                gson.fromJson(URLLoader.loadWithRedirect(locationRaw.toURL()), JsonObject.class);
-            object = convertPointersAndDefinitions(object).getAsJsonObject();
+            SchemaParser parser = parse(URLLoader.loadWithRedirect(locationRaw.toURL()),
+                locationRaw.getScheme(), event);
 
             if (!location.getScheme().equals("file")) {
-              Store.storeSchema(object, location);
+              Store.storeSchema(object, location, parser.getRefSites(), store.isGzipOutput());
             }
           } catch (URISyntaxException e1) {
             throw new InvalidIdentifierException(location + " is no valid URI with query raw=true");
@@ -158,56 +262,118 @@ public class SchemaFile {
     }
   }
 
-  private JsonElement convertPointersAndDefinitions(JsonElement json) {
-    if (json.isJsonArray()) {
-      JsonArray array = new JsonArray();
+  /**
+   * Parses <code>json</code> into <code>object</code> and sets the draft and the index of ids of
+   * this in the same pass. See {@link SchemaParser}.
+   * 
+   * @return parser with the objects of <code>object</code> which have a "$ref".
+   */
+  private SchemaParser parse(String json, String source, SchemaLoadEvent event) {
+    if (event.isEnabled()) {
+      event.source = source;
+      event.bytes = json.getBytes(StandardCharsets.UTF_8).length;
+    }
 
-      for (JsonElement elem : json.getAsJsonArray()) {
-        array.add(convertPointersAndDefinitions(elem));
-      }
+    SchemaParser parser = new SchemaParser();
+    object = parser.parse(json);
+    draft = SchemaUtil.getDraft(object, parser.usesDollarId());
+    idIndex = parser.getIdIndex();
+    rows = parser.getRows();
+    return parser;
+  }
 
-      return array;
+  /**
+   * Converts <code>json</code> in place and sets the draft of this. See
+   * {@link #convertPointersAndDefinitions(JsonObject)}.
+   */
+  private JsonObject convert(JsonObject json) {
+    long start = Metrics.start();
+    try {
+      convertPointersAndDefinitions(json);
+      return json;
+    } finally {
+      Metrics.stop(Metrics.CONVERT, start);
     }
+  }
 
-    if (json.isJsonObject()) {
-      JsonObject object = new JsonObject();
-      JsonObject obj = json.getAsJsonObject();
+  /**
+   * Converts all keys in "definitions" and all pointers to them in place. Only the
+   * "definitions"-objects are replaced, all other elements of <code>json</code> are kept. While
+   * converting, it is checked whether "$id" is used outside of "enum", such that the draft of this
+   * is set without traversing the schema again. An explicit stack is used instead of recursion,
+   * such that deeply nested schemas can be converted with the default stack size.
+   */
+  private void convertPointersAndDefinitions(JsonObject json) {
+    Deque<PendingConversion> stack = new ArrayDeque<>();
+    convertLater(json, false, stack);
+    boolean usesDollarId = false;
 
-      for (String key : obj.keySet()) {
-        if (key.equals("definitions")) {
-          JsonObject defs = obj.get("definitions").getAsJsonObject();
-          JsonObject newDefs = new JsonObject();
+    while (!stack.isEmpty()) {
+      PendingConversion pending = stack.pop();
 
-          for (String defKey : defs.keySet()) {
-            String newKey = defKey.replace(".", "_").replace("definitions", "defs");
-            newDefs.add(newKey, convertPointersAndDefinitions(defs.get(defKey)));
-          }
+      if (pending.element.isJsonArray()) {
+        for (JsonElement elem : pending.element.getAsJsonArray()) {
+          convertLater(elem, pending.inEnum, stack);
+        }
+      } else {
+        JsonObject obj = pending.element.getAsJsonObject();
+        usesDollarId = usesDollarId || (!pending.inEnum && obj.has("$id"));
 
-          object.add("definitions", newDefs);
-        } else if (key.equals("$ref")) {
-          String value;
-          try {
-            value = obj.get(key).getAsString();
+        for (Entry<String, JsonElement> entry : obj.entrySet()) {
+          String key = entry.getKey();
+          boolean inEnum = pending.inEnum || key.equals("enum");
 
-            if (value.contains("#/definitions/")) {
-              String[] parts = value.split("#/definitions/");
-              String suffix = parts[1].replace(".", "_").replace("definitions", "defs");
-              value = parts[0] + "#/definitions/" + suffix;
+          if (key.equals("definitions")) {
+            JsonObject defs = entry.getValue().getAsJsonObject();
+            JsonObject newDefs = new JsonObject();
+
+            for (Entry<String, JsonElement> def : defs.entrySet()) {
+              newDefs.add(SchemaParser.convertDefinitionKey(def.getKey()), def.getValue());
+              convertLater(def.getValue(), inEnum, stack);
             }
 
-            object.addProperty(key, value);
-          } catch (UnsupportedOperationException e) {
-            object.add(key, convertPointersAndDefinitions(obj.get(key)));
+            entry.setValue(newDefs);
+            usesDollarId = usesDollarId || (!inEnum && newDefs.has("$id"));
+          } else if (key.equals("$ref")) {
+            try {
+              String value = SchemaParser.convertRef(entry.getValue().getAsString());
+              entry.setValue(new JsonPrimitive(value));
+            } catch (UnsupportedOperationException e) {
+              convertLater(entry.getValue(), inEnum, stack);
+            }
+          } else {
+            convertLater(entry.getValue(), inEnum, stack);
           }
-        } else {
-          object.add(key, convertPointersAndDefinitions(obj.get(key)));
         }
       }
+    }
+
+    draft = SchemaUtil.getDraft(json, usesDollarId);
+  }
 
-      return object;
+  /**
+   * Pushes <code>json</code> on <code>stack</code>, if it is an object or array, such that its
+   * children are converted when it is popped.
+   */
+  private static void convertLater(JsonElement json, boolean inEnum,
+      Deque<PendingConversion> stack) {
+    if (json.isJsonArray() || json.isJsonObject()) {
+      stack.push(new PendingConversion(json, inEnum));
     }
+  }
 
-    return json;
+  /**
+   * Object or array whose children still need to be converted.
+   */
+  private static class PendingConversion {
+    private final JsonElement element;
+    // true, if element is within "enum"
+    private final boolean inEnum;
+
+    PendingConversion(JsonElement element, boolean inEnum) {
+      this.element = element;
+      this.inEnum = inEnum;
+    }
   }
 
   /**
@@ -231,45 +397,105 @@ public class SchemaFile {
   }
 
   /**
-   * Gets the current resolution scope.
-   * 
-   * @return current resolution scope you are in. On the highest level, <code>id</code> is returned.
+   * Computes the resolution scope of every object of <code>object</code>. The scope of an object
+   * is its id resolved against the scope of its closest enclosing object, the root is resolved
+   * against <code>id</code>. Ids of objects within an "enum"-array do not change the scope. As
+   * scopes only depend on the document, they are computed once, such that no scope needs to be
+   * tracked while traversing.
    */
-  public URI getResScope() {
-    if (resScope.empty()) {
-      return id;
-    } else {
-      return resScope.peek();
+  private void indexScopes() {
+    scopes = new IdentityHashMap<>();
+    Deque<PendingScope> stack = new ArrayDeque<>();
+    stack.push(new PendingScope(object, id, false));
+
+    while (!stack.isEmpty()) {
+      PendingScope pending = stack.pop();
+      URI scope = pending.parentScope;
+
+      if (pending.element.isJsonObject()) {
+        JsonObject obj = pending.element.getAsJsonObject();
+        if (!pending.inEnum) {
+          try {
+            scope = resolveScope(scope, SchemaUtil.getId(obj, draft));
+          } catch (URISyntaxException e) {
+            throw new InvalidIdentifierException(
+                this + " has an identifier which is not a valid URI");
+          }
+        }
+        scopes.put(obj, scope);
+
+        for (Entry<String, JsonElement> entry : obj.entrySet()) {
+          boolean inEnum = pending.inEnum
+              || (entry.getKey().equals("enum") && entry.getValue().isJsonArray());
+          scopeLater(entry.getValue(), scope, inEnum, stack);
+        }
+      } else {
+        for (JsonElement elem : pending.element.getAsJsonArray()) {
+          scopeLater(elem, scope, pending.inEnum, stack);
+        }
+      }
+    }
+  }
+
+  private static void scopeLater(JsonElement element, URI parentScope, boolean inEnum,
+      Deque<PendingScope> stack) {
+    if (element.isJsonObject() || element.isJsonArray()) {
+      stack.push(new PendingScope(element, parentScope, inEnum));
     }
   }
 
   /**
-   * Sets the resolution scope to <code>scope</code>.
-   * 
-   * @param scope to be set. If <code>null</code> old resolution scope stays.
+   * Object or array whose resolution scope still needs to be computed.
    */
-  public void setResScope(URI scope) {
-    if (scope.toString().equals("")) {
-      resScope.push(getResScope());
-    } else {
-      resScope.push(URIUtil.removeTrailingHash(getResScope().resolve(scope)));
+  private static class PendingScope {
+    private final JsonElement element;
+    // scope of the closest enclosing object
+    private final URI parentScope;
+    // true, if element is within an "enum"-array
+    private final boolean inEnum;
+
+    PendingScope(JsonElement element, URI parentScope, boolean inEnum) {
+      this.element = element;
+      this.parentScope = parentScope;
+      this.inEnum = inEnum;
     }
   }
 
   /**
-   * Sets the resolution scope to the previous one and returns it.
+   * Gets the resolution scope of <code>element</code>.
+   * 
+   * @param element object of this.
+   * @return resolution scope of <code>element</code>. Scope of the root, if <code>element</code> is
+   *         no object of this.
+   */
+  public URI getScope(JsonElement element) {
+    URI scope = scopes.get(element);
+    return scope != null ? scope : getRootScope();
+  }
+
+  /**
+   * Gets the resolution scope of the root of this.
    * 
-   * @return current resolution scope.
+   * @return resolution scope of the root.
    */
-  public URI oneScopeUp() {
-    return resScope.pop();
+  public URI getRootScope() {
+    return scopes.get(object);
   }
 
   /**
-   * Sets the resolution scope to the scope of the top level schema.
+   * Gets the resolution scope of an object with the id <code>scope</code> within
+   * <code>parent</code>.
+   * 
+   * @param parent resolution scope the object is in.
+   * @param scope id of the object. May be empty.
+   * @return resolution scope of the object.
    */
-  public void setResScopeToTopLevel() {
-    resScope.push(resScope.firstElement());
+  static URI resolveScope(URI parent, URI scope) {
+    if (scope.toString().equals("")) {
+      return parent;
+    } else {
+      return CanonicalURI.of(parent).resolve(scope).withoutTrailingHash().toURI();
+    }
   }
 
   /**
@@ -330,18 +556,37 @@ public class SchemaFile {
     return store.alreadyVisited(element);
   }
 
+  /**
+   * Gets the count of visited <code>JsonElements</code> of all files loaded with this.
+   * 
+   * @return count of visited <code>JsonElements</code>.
+   */
+  public int getVisitedCount() {
+    return store.getVisitedCount();
+  }
+
+  /**
+   * Gets the budget of the root schema and all files loaded with it.
+   * 
+   * @return budget of stored <code>SchemaStore</code>.
+   */
+  public Budget getBudget() {
+    return store.getBudget();
+  }
+
   /**
    * Gets <code>SchemaFile</code> of <code>file</code>. If the corresponding is already stored in
    * the <code>store</code>, then the stored one is returned. Otherwise the new
    * <code>SchemaFile</code> is added to the <code>store</coded> and returned.
    * 
+   * @param scope resolution scope <code>identifier</code> is resolved against.
    * @param identifier of which the <code>SchemaFile</code> should be returned.
    * 
    * @return <code>SchemaFile</code> of <code>file</code>. If the corresponding is already stored in
    *         the <code>store</code>, then the stored one is returned
    */
-  public SchemaFile getLoadedFile(URI identifier) {
-    return store.getLoadedFile(resScope.peek().resolve(identifier));
+  public SchemaFile getLoadedFile(URI scope, URI identifier) {
+    return store.getLoadedFile(CanonicalURI.of(scope).resolve(identifier).toURI());
   }
 
   public URI getId() {
@@ -352,6 +597,26 @@ public class SchemaFile {
     return object;
   }
 
+  /**
+   * Gets the line count of the schema as it was read, pretty printed by <code>Gson</code>. See
+   * {@link SchemaParser#getRows()}. Changes to <code>object</code> are not reflected in it.
+   * 
+   * @return line count or -1, if the schema was not read from text.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Gets the index of all objects which may open a resolution scope. It is created when the
+   * schema is loaded, changes to <code>object</code> are not reflected in it.
+   * 
+   * @return index of <code>object</code>.
+   */
+  IdIndex getIdIndex() {
+    return idIndex;
+  }
+
   /**
    * Gets a set of <code>Strings</code> of all loaded <code>URIs</code>. This are all
    * <code>URIs</code> of schemas used for normalization.
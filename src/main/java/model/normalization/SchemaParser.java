@@ -0,0 +1,297 @@
+package model.normalization;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.internal.LazilyParsedNumber;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/**
+ * Parses a schema in a single pass. While the tree is built, all keys in "definitions" and all
+ * pointers to them are converted, objects with a "$ref" are collected, an {@link IdIndex} is
+ * created, it is checked whether "$id" is used outside of "enum" and the rows of the schema
+ * pretty printed by Gson are counted. Later stages therefore do not need to traverse or read the
+ * schema again for these. An explicit stack is used instead of
+ * recursion, such that deeply nested schemas can be parsed with the default stack size.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaParser {
+  private final List<JsonObject> refSites = new ArrayList<>();
+  private IdIndex idIndex = new IdIndex();
+  private boolean usesDollarId = false;
+  private boolean duplicateKeys = false;
+  private int objects = 0;
+  private int rows = 0;
+
+  /**
+   * Parses <code>json</code>. Numbers are kept as they are written, like Gson does.
+   *
+   * @param json to be parsed. Has to be a JSON object.
+   * @return parsed and converted schema.
+   * @throws JsonSyntaxException if <code>json</code> is no valid JSON object.
+   */
+  public JsonObject parse(String json) {
+    JsonReader reader = new JsonReader(new StringReader(json));
+    reader.setLenient(true);
+
+    try {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        throw new JsonSyntaxException("Schema is no JSON object");
+      }
+
+      JsonObject root = new JsonObject();
+      Deque<Frame> stack = new ArrayDeque<>();
+      reader.beginObject();
+      stack.push(new Frame(root, false, false, true, objects++, 1));
+      rows++;
+
+      while (!stack.isEmpty()) {
+        Frame frame = stack.peek();
+
+        if (!reader.hasNext()) {
+          stack.pop();
+          close(reader, frame);
+        } else if (frame.object != null) {
+          readEntry(reader, frame, stack);
+        } else {
+          frame.children++;
+          rows++;
+          JsonElement value = readValue(reader, null, frame.inEnum, frame.indexed, frame, stack);
+          frame.array.add(value != null ? value : stack.peek().container());
+        }
+      }
+
+      if (reader.peek() != JsonToken.END_DOCUMENT) {
+        throw new JsonSyntaxException("JSON document was not fully consumed");
+      }
+
+      if (duplicateKeys) {
+        // objects of overwritten values are indexed, too
+        idIndex = IdIndex.of(root);
+      }
+      return root;
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      throw new JsonSyntaxException(e);
+    }
+  }
+
+  /**
+   * Checks whether "$id" is used outside of "enum" in the parsed schema.
+   *
+   * @return <code>true</code>, if "$id" is used.
+   */
+  public boolean usesDollarId() {
+    return usesDollarId;
+  }
+
+  /**
+   * Gets the index of all objects of the parsed schema which may open a resolution scope.
+   *
+   * @return index of the parsed schema.
+   */
+  public IdIndex getIdIndex() {
+    return idIndex;
+  }
+
+  /**
+   * Gets the line count of the parsed schema pretty printed by Gson, without printing it. Like
+   * Gson, members whose value is null are left out. Unlike Gson, members of duplicate keys are
+   * all counted.
+   *
+   * @return line count of the parsed schema.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Gets all objects of the parsed schema with a primitive "$ref".
+   *
+   * @return objects with a "$ref".
+   */
+  public List<JsonObject> getRefSites() {
+    return refSites;
+  }
+
+  /**
+   * Converts a key of "definitions" such that it can be used in a JSON-Pointer of the normalized
+   * schema.
+   *
+   * @param key to be converted.
+   * @return converted key.
+   */
+  static String convertDefinitionKey(String key) {
+    return key.replace(".", "_").replace("definitions", "defs");
+  }
+
+  /**
+   * Converts a reference to "definitions" such that it points to the converted key. See
+   * {@link #convertDefinitionKey(String)}.
+   *
+   * @param ref to be converted.
+   * @return converted reference.
+   */
+  static String convertRef(String ref) {
+    if (ref.contains("#/definitions/")) {
+      String[] parts = ref.split("#/definitions/");
+      return parts[0] + "#/definitions/" + convertDefinitionKey(parts[1]);
+    }
+    return ref;
+  }
+
+  private void readEntry(JsonReader reader, Frame frame, Deque<Frame> stack) throws IOException {
+    String name = reader.nextName();
+    // direct children of "definitions" are no keywords
+    boolean keyword = !frame.definitions;
+    if (!keyword) {
+      name = convertDefinitionKey(name);
+    }
+    if (frame.object.has(name)) {
+      duplicateKeys = true;
+    }
+    if (!frame.inEnum && name.equals("$id")) {
+      usesDollarId = true;
+    }
+
+    JsonToken token = reader.peek();
+    if (token != JsonToken.NULL) {
+      // opening line or the line of a primitive
+      frame.children++;
+      rows++;
+    }
+    if (keyword && name.equals("definitions") && token != JsonToken.BEGIN_OBJECT) {
+      throw new JsonSyntaxException("\"definitions\" is no JSON object");
+    }
+    boolean inEnum = frame.inEnum || (keyword && name.equals("enum"));
+    boolean indexed = frame.indexed && !(name.equals("enum") && token == JsonToken.BEGIN_ARRAY);
+
+    JsonElement value = readValue(reader, keyword ? name : null, inEnum, indexed, frame, stack);
+    if (keyword && name.equals("$ref") && value != null && value.isJsonPrimitive()) {
+      value = new JsonPrimitive(convertRef(value.getAsString()));
+    }
+    frame.object.add(name, value != null ? value : stack.peek().container());
+  }
+
+  /**
+   * Reads the next value. Objects and arrays are pushed on <code>stack</code>, such that their
+   * children are read next.
+   *
+   * @param keyword name of the value, if it is a keyword. <code>null</code>, if not.
+   * @return read value. <code>null</code>, if an object or array has been pushed.
+   */
+  private JsonElement readValue(JsonReader reader, String keyword, boolean inEnum,
+      boolean indexed, Frame parent, Deque<Frame> stack) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        reader.beginObject();
+        stack.push(new Frame(new JsonObject(), "definitions".equals(keyword), inEnum, indexed,
+            objects++, parent.depth + 1));
+        return null;
+      case BEGIN_ARRAY:
+        reader.beginArray();
+        stack.push(new Frame(new JsonArray(), "$ref".equals(keyword) ? parent.object : null,
+            inEnum, indexed, parent.depth));
+        return null;
+      case STRING:
+        return new JsonPrimitive(reader.nextString());
+      case NUMBER:
+        return new JsonPrimitive(new LazilyParsedNumber(reader.nextString()));
+      case BOOLEAN:
+        return new JsonPrimitive(reader.nextBoolean());
+      case NULL:
+        reader.nextNull();
+        return JsonNull.INSTANCE;
+      default:
+        throw new JsonSyntaxException("Unexpected " + reader.peek() + " at " + reader.getPath());
+    }
+  }
+
+  private void close(JsonReader reader, Frame frame) throws IOException {
+    if (frame.children > 0) {
+      // closing line
+      rows++;
+    }
+    if (frame.object != null) {
+      reader.endObject();
+      JsonObject object = frame.object;
+
+      if (object.has("$ref") && object.get("$ref").isJsonPrimitive()) {
+        refSites.add(object);
+      }
+      if (frame.indexed && (frame.depth == 1 || IdIndex.hasId(object))) {
+        idIndex.add(object, frame.begin, objects - 1, frame.depth);
+      }
+    } else {
+      reader.endArray();
+
+      if (frame.refOf != null) {
+        // a "$ref" which is an array with a single value is converted like Gson does
+        try {
+          String ref = frame.array.getAsString();
+          frame.refOf.add("$ref", new JsonPrimitive(convertRef(ref)));
+        } catch (UnsupportedOperationException e) {
+          // no reference, stays as it is
+        }
+      }
+    }
+  }
+
+  /**
+   * Object or array whose children are read.
+   */
+  private static class Frame {
+    private final JsonObject object;
+    private final JsonArray array;
+    // object in which array is the value of "$ref"
+    private final JsonObject refOf;
+    // true, if object is the "definitions"-section whose keys are converted
+    private final boolean definitions;
+    // true, if within "enum"
+    private final boolean inEnum;
+    // false, if within an "enum"-array
+    private final boolean indexed;
+    private final int begin;
+    // count of objects from the root to this, both included
+    private final int depth;
+    // count of children which are printed
+    private int children = 0;
+
+    Frame(JsonObject object, boolean definitions, boolean inEnum, boolean indexed, int begin,
+        int depth) {
+      this.object = object;
+      this.array = null;
+      this.refOf = null;
+      this.definitions = definitions;
+      this.inEnum = inEnum;
+      this.indexed = indexed;
+      this.begin = begin;
+      this.depth = depth;
+    }
+
+    Frame(JsonArray array, JsonObject refOf, boolean inEnum, boolean indexed, int depth) {
+      this.object = null;
+      this.array = array;
+      this.refOf = refOf;
+      this.definitions = false;
+      this.inEnum = inEnum;
+      this.indexed = indexed;
+      this.begin = -1;
+      this.depth = depth;
+    }
+
+    JsonElement container() {
+      return object != null ? object : array;
+    }
+  }
+}
@@ -2,14 +2,19 @@ package model.normalization;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import com.google.gson.JsonElement;
 import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
 import exception.DistributedSchemaException;
+import model.Budget;
 
 /**
  * Used for encapsulation of a <code>URI</code> and the lists of all visited
- * <code>JsonElements</code> and all already loaded <code>SchemaFiles</code>.
+ * <code>JsonElements</code> and all already loaded <code>SchemaFiles</code>. The
+ * <code>Budget</code> of the schema starts with the creation of its store.
  * 
  * @author Lukas Ellinger
  */
@@ -18,6 +23,10 @@ public class SchemaStore {
   private URI root;
   private List<JsonElement> visited = new ArrayList<>();
   private List<SchemaFile> loadedFiles = new ArrayList<>();
+  // first loaded file of each id
+  private Map<URI, SchemaFile> loadedFilesById = new HashMap<>();
+  private final Budget budget;
+  private final SchemaCache cache;
 
   /**
    * Stores <code>schema</code> as root and adds it to the <code>loadedFiles</code>.
@@ -27,33 +36,48 @@ public class SchemaStore {
    */
   public SchemaStore(SchemaFile rootSchemaFile, LoadSchemaDTO config) {
     this.config = config;
+    this.budget = new Budget(config);
+    this.cache = null;
     this.root = rootSchemaFile.getId();
-    loadedFiles.add(rootSchemaFile);
+    addLoadedFile(rootSchemaFile);
   }
 
   public SchemaStore(LoadSchemaDTO config) {
+    this(config, null);
+  }
+
+  /**
+   * 
+   * @param config of how schema should be loaded.
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   */
+  public SchemaStore(LoadSchemaDTO config, SchemaCache cache) {
     this.config = config;
+    this.budget = new Budget(config);
+    this.cache = cache;
   }
 
   public void addRootSchemaFile(SchemaFile rootSchemaFile) {
     this.root = rootSchemaFile.getId();
-    loadedFiles.add(rootSchemaFile);
+    addLoadedFile(rootSchemaFile);
   }
 
   public boolean isFetchSchemasOnline() {
     return config.isFetchSchemasOnline();
   }
 
-  public boolean hasPermalink(URI uri) {
-    if (!config.hasLinksToPermalinks()) {
-      return false;
-    }
-
-    return config.hasPermalink(uri.toString());
+  public boolean isGzipOutput() {
+    return config.isGzipOutput();
   }
 
-  public String getPermalink(URI uri) {
-    return config.getPermalink(uri.toString());
+  /**
+   * Gets the permalink of <code>uri</code>, if there is one.
+   * 
+   * @param uri to get the permalink of.
+   * @return permalink of <code>uri</code>. <code>null</code>, if it has none.
+   */
+  public String findPermalink(URI uri) {
+    return config.findPermalink(uri.toString());
   }
 
   public URI getRoot() {
@@ -68,6 +92,14 @@ public class SchemaStore {
     return loadedFiles;
   }
 
+  public Budget getBudget() {
+    return budget;
+  }
+
+  public SchemaCache getCache() {
+    return cache;
+  }
+
   /**
    * Gets <code>SchemaFile</code> of <code>identifier</code>. If the corresponding is already stored
    * in <code>loadedFiles</code>, then the stored one is returned. Otherwise the new
@@ -77,17 +109,19 @@ public class SchemaStore {
    * 
    * @return <code>SchemaFile</code> of <code>identifier</code>. If the corresponding is already
    *         stored in <code>loadedFiles</code>, then the stored one is returned
+   * @throws BudgetExceededException if a new file would exceed the budget.
    */
   public SchemaFile getLoadedFile(URI identifier) {
-    for (SchemaFile loadedSchema : loadedFiles) {
-      if (loadedSchema.getId().equals(identifier)) {
-        return loadedSchema;
-      }
+    SchemaFile loadedSchema = loadedFilesById.get(identifier);
+    if (loadedSchema != null) {
+      return loadedSchema;
     }
 
     if (config.isAllowDistributedSchemas()) {
+      budget.checkTime();
+      budget.checkLoadedFiles(loadedFiles.size() + 1);
       SchemaFile schema = new SchemaFile(identifier, this);
-      loadedFiles.add(schema);
+      addLoadedFile(schema);
       return schema;
     } else {
       throw new DistributedSchemaException(
@@ -95,6 +129,11 @@ public class SchemaStore {
     }
   }
 
+  private void addLoadedFile(SchemaFile schema) {
+    loadedFiles.add(schema);
+    loadedFilesById.putIfAbsent(schema.getId(), schema);
+  }
+
   /**
    * Adds <code>element</code> to the visited <code>JsonElements</code>.
    * 
@@ -114,6 +153,10 @@ public class SchemaStore {
     return visited.contains(element);
   }
 
+  public int getVisitedCount() {
+    return visited.size();
+  }
+
   /**
    * Checks whether <code>schema</code> has the same <code>id</code> as <code>root</code> of this.
    * 
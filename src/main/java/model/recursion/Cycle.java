@@ -0,0 +1,94 @@
+package model.recursion;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Witness of a recursive strongly connected component of the definitions of a normalized schema.
+ * The witness is a cycle of definitions, in which the last definition references the first one
+ * again. For each edge of the cycle it is stored whether it is guarded. The root of the schema is
+ * named "#".
+ *
+ * @author Lukas Ellinger
+ */
+public class Cycle {
+  private final List<String> component;
+  private final List<String> definitions;
+  private final List<Boolean> guarded;
+
+  /**
+   *
+   * @param component names of all definitions of the strongly connected component.
+   * @param definitions names of the definitions of the cycle in their order.
+   * @param guarded whether the edge from the definition at the same index to the next one is
+   *        guarded.
+   */
+  public Cycle(List<String> component, List<String> definitions, List<Boolean> guarded) {
+    if (definitions.isEmpty() || definitions.size() != guarded.size()) {
+      throw new IllegalArgumentException("each definition of a cycle needs one outgoing edge");
+    }
+    this.component = Collections.unmodifiableList(component);
+    this.definitions = Collections.unmodifiableList(definitions);
+    this.guarded = Collections.unmodifiableList(guarded);
+  }
+
+  public List<String> getComponent() {
+    return component;
+  }
+
+  public List<String> getDefinitions() {
+    return definitions;
+  }
+
+  /**
+   * Checks whether the edge from the definition at <code>index</code> to the next one is guarded.
+   *
+   * @param index of the definition the edge starts at.
+   * @return <code>true</code>, if the edge is guarded.
+   */
+  public boolean isEdgeGuarded(int index) {
+    return guarded.get(index);
+  }
+
+  /**
+   * Gets the type of recursion this cycle witnesses. A cycle is unguarded if none of its edges is
+   * guarded.
+   *
+   * @return <code>RECURSION</code>, if no edge is guarded. Else <code>GUARDED</code>.
+   */
+  public RecursionType getType() {
+    return guarded.contains(true) ? RecursionType.GUARDED : RecursionType.RECURSION;
+  }
+
+  /**
+   * Gets the type of recursion witnessed by <code>cycles</code>.
+   *
+   * @param cycles witnesses of all recursive strongly connected components of a schema.
+   * @return <code>RECURSION</code>, if one of <code>cycles</code> is unguarded,
+   *         <code>GUARDED</code>, if there are only guarded ones and else <code>NONE</code>.
+   */
+  public static RecursionType getType(List<Cycle> cycles) {
+    RecursionType type = RecursionType.NONE;
+    for (Cycle cycle : cycles) {
+      if (cycle.getType() == RecursionType.RECURSION) {
+        return RecursionType.RECURSION;
+      }
+      type = RecursionType.GUARDED;
+    }
+    return type;
+  }
+
+  /**
+   * Gets the cycle as "a -&gt; b ~&gt; a", in which "~&gt;" is a guarded edge and "-&gt;" an
+   * unguarded one.
+   */
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder(definitions.get(0));
+    for (int i = 0; i < definitions.size(); i++) {
+      builder.append(guarded.get(i) ? " ~> " : " -> ")
+          .append(definitions.get((i + 1) % definitions.size()));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,255 @@
+package model.recursion;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import event.RecursionCheckEvent;
+import exception.BudgetExceededException;
+import exception.InvalidIdentifierException;
+import exception.InvalidReferenceException;
+import model.Budget;
+import model.normalization.FilePointer;
+import model.normalization.SchemaFile;
+import util.Metrics;
+import util.SchemaUtil;
+import util.URIUtil;
+
+/**
+ * Checks whether a Json-Schema, which may be distributed over several files, is recursive without
+ * normalizing it. The reference graph is built directly over the loaded files: Its nodes are the
+ * root, the definitions of the root file and every element which is referenced, its edges are
+ * the references within these elements resolved with {@link FilePointer}. These are the
+ * definitions the normalized schema would consist of, therefore the classification equals the one
+ * of {@link RecursionChecker#findCycles()} on the normalized schema, but the normalized schema is
+ * never materialized and the files are not altered. An element which normalization would add
+ * under several names is a single node, named after its first occurrence.
+ *
+ * @author Lukas Ellinger
+ */
+public class DistributedRecursionChecker {
+  private final SchemaFile rootSchema;
+  private int nodes;
+
+  /**
+   *
+   * @param file of the root schema.
+   * @param config of how referenced schemas should be loaded. Its limits are the budget of the
+   *        check.
+   */
+  public DistributedRecursionChecker(File file, LoadSchemaDTO config) {
+    this(new SchemaFile(file, config));
+  }
+
+  /**
+   *
+   * @param rootSchema of which the references are followed. Is not altered.
+   */
+  public DistributedRecursionChecker(SchemaFile rootSchema) {
+    this.rootSchema = rootSchema;
+  }
+
+  public SchemaFile getRootSchema() {
+    return rootSchema;
+  }
+
+  /**
+   * Checks whether the schema is recursive. Also differs between guarded and unguarded recursion.
+   *
+   * @return <code>RECURSION</code>, if there is a cycle of unguarded references,
+   *         <code>GUARDED</code>, if there are only guarded cycles and else <code>NONE</code>.
+   * @throws BudgetExceededException if the check exceeds the budget of the config.
+   * @throws InvalidReferenceException if a reference cannot be resolved.
+   */
+  public RecursionType checkForRecursion() {
+    RecursionCheckEvent event = new RecursionCheckEvent();
+    event.begin();
+    try {
+      RecursionType type = Cycle.getType(findCycles());
+      event.result = type.name();
+      return type;
+    } finally {
+      if (event.isEnabled()) {
+        event.schema = rootSchema.getId().toString();
+        event.definitions = nodes - 1;
+      }
+      event.commit();
+    }
+  }
+
+  /**
+   * Finds a witness cycle for each recursive strongly connected component of the reference graph.
+   * See {@link ReferenceGraph#findCycles()}. Definitions which would be added by normalization
+   * are named like in the normalized schema.
+   *
+   * @return a witness cycle for each recursive strongly connected component. Empty, if the schema
+   *         is not recursive.
+   * @throws BudgetExceededException if the check exceeds the budget of the config.
+   * @throws InvalidReferenceException if a reference cannot be resolved.
+   */
+  public List<Cycle> findCycles() {
+    long start = Metrics.start();
+    try {
+      ReferenceGraph graph = buildGraph();
+      nodes = graph.size();
+      return graph.findCycles();
+    } finally {
+      Metrics.stop(Metrics.RECURSION_CHECK, start);
+    }
+  }
+
+  private ReferenceGraph buildGraph() {
+    Budget budget = rootSchema.getBudget();
+    ReferenceGraph graph = new ReferenceGraph();
+    Map<JsonElement, Integer> ids = new IdentityHashMap<>();
+    Deque<Target> pending = new ArrayDeque<>();
+    JsonObject root = rootSchema.getObject();
+
+    ids.put(root, graph.addNode("#"));
+    pending.add(new Target(ids.get(root), root, rootSchema));
+    for (Entry<String, JsonElement> entry : SchemaUtil.getDefinitions(root).entrySet()) {
+      if (!ids.containsKey(entry.getValue())) {
+        ids.put(entry.getValue(), graph.addNode(entry.getKey()));
+        pending.add(new Target(ids.get(entry.getValue()), entry.getValue(), rootSchema));
+      }
+    }
+    int definitions = pending.size();
+
+    while (!pending.isEmpty()) {
+      budget.checkTime();
+      Target target = pending.poll();
+
+      for (Reference reference : getReferences(target, target.element == root)) {
+        JsonElement referenced = reference.pointer.getRefElement();
+        Integer id = ids.get(referenced);
+        if (id == null) {
+          id = graph.addNode(getName(reference.pointer));
+          ids.put(referenced, id);
+          pending.add(new Target(id, referenced, reference.pointer.getSchema()));
+          budget.checkDefinitions(graph.size() - definitions);
+        }
+        graph.addEdge(target.id, id, reference.guarded);
+      }
+    }
+
+    return graph;
+  }
+
+  /**
+   * Gets all references within the element of <code>target</code> in the order of the document,
+   * such that nodes are added in the order normalization would add them. Whether a reference is
+   * guarded is determined as by {@link RecursionChecker}. Elements within an "enum"-array are
+   * left out, as they are not normalized either.
+   *
+   * @param target of which the references are collected.
+   * @param skipDefinitions <code>true</code>, if "definitions" of <code>target</code> should be
+   *        left out, as they are nodes of their own.
+   * @return references with their pointers not resolved yet.
+   */
+  private List<Reference> getReferences(Target target, boolean skipDefinitions) {
+    List<Reference> references = new ArrayList<>();
+    Deque<Reference> stack = new ArrayDeque<>();
+    stack.push(new Reference(target.element, null, false));
+
+    while (!stack.isEmpty()) {
+      Reference current = stack.pop();
+      // children are pushed in reverse, such that they are popped in the order of the document
+      List<Reference> children = new ArrayList<>();
+
+      if (current.element.isJsonObject()) {
+        JsonObject object = current.element.getAsJsonObject();
+        for (Entry<String, JsonElement> entry : object.entrySet()) {
+          JsonElement value = entry.getValue();
+          if (entry.getKey().equals("$ref") && value.isJsonPrimitive()) {
+            children.add(new Reference(value,
+                toPointer(value.getAsString(), target.schema, object), current.guarded));
+          } else if (!(entry.getKey().equals("enum") && value.isJsonArray())
+              && !(skipDefinitions && object == target.element
+                  && entry.getKey().equals("definitions"))) {
+            children.add(new Reference(value, null,
+                current.guarded || RecursionChecker.isKeyGuarded(entry.getKey())));
+          }
+        }
+      } else if (current.element.isJsonArray()) {
+        for (JsonElement element : current.element.getAsJsonArray()) {
+          children.add(new Reference(element, null, current.guarded));
+        }
+      }
+
+      for (int i = children.size() - 1; i >= 0; i--) {
+        stack.push(children.get(i));
+      }
+      if (current.pointer != null) {
+        references.add(current);
+      }
+    }
+
+    return references;
+  }
+
+  private static FilePointer toPointer(String refString, SchemaFile schema, JsonObject object) {
+    try {
+      return new FilePointer(URIUtil.toURI(refString), schema, schema.getScope(object));
+    } catch (URISyntaxException e) {
+      throw new InvalidIdentifierException(
+          schema + " has a reference which is not a valid URI: " + refString);
+    }
+  }
+
+  /**
+   * Gets the name of the definition the element referenced by <code>pointer</code> would be
+   * stored as in the normalized schema.
+   *
+   * @param pointer which has been resolved.
+   * @return name of the definition.
+   */
+  private static String getName(FilePointer pointer) {
+    if (pointer.referencesRoot()) {
+      return "#";
+    } else if (pointer.referencesDefChild()) {
+      return FilePointer.getUnescaped(pointer.getRef().substring("#/definitions/".length()));
+    } else {
+      return FilePointer.getUnescaped(pointer.convertPointer());
+    }
+  }
+
+  /**
+   * Node of the reference graph whose references still need to be collected.
+   */
+  private static class Target {
+    private final int id;
+    private final JsonElement element;
+    // file element is in
+    private final SchemaFile schema;
+
+    Target(int id, JsonElement element, SchemaFile schema) {
+      this.id = id;
+      this.element = element;
+      this.schema = schema;
+    }
+  }
+
+  /**
+   * Element while references are collected, or a collected reference.
+   */
+  private static class Reference {
+    private final JsonElement element;
+    // null, if element has not been found to be a reference
+    private final FilePointer pointer;
+    private final boolean guarded;
+
+    Reference(JsonElement element, FilePointer pointer, boolean guarded) {
+      this.element = element;
+      this.pointer = pointer;
+      this.guarded = guarded;
+    }
+  }
+}
@@ -3,17 +3,23 @@ package model.recursion;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
-import org.apache.commons.io.FileUtils;
 import java.io.File;
 import java.io.IOException;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import event.RecursionCheckEvent;
+import exception.BudgetExceededException;
 import exception.InvalidIdentifierException;
+import exception.InvalidReferenceException;
+import model.Budget;
 import model.Pointer;
+import util.Metrics;
 import util.SchemaUtil;
 import util.URIUtil;
 
@@ -26,6 +32,8 @@ import util.URIUtil;
 public class RecursionChecker {
 
   private JsonObject schema;
+  private Budget budget = Budget.UNLIMITED;
+  private String name;
 
   /**
    * 
@@ -36,8 +44,14 @@ public class RecursionChecker {
     this.schema = new Gson().fromJson(schema, JsonObject.class);
   }
   
+  /**
+   * 
+   * @param file with normalized schema. May be gzip-compressed.
+   * @throws IOException if <code>file</code> cannot be read.
+   */
   public RecursionChecker(File file) throws IOException {
-    this(FileUtils.readFileToString(file, "UTF-8"));
+    this(SchemaUtil.readFile(file));
+    this.name = file.getName();
   }
 
   /**
@@ -57,14 +71,118 @@ public class RecursionChecker {
     this.schema = schema;
   }
 
+  /**
+   * Sets the budget of the check. Only its wall time is checked, as normalized schemas do not load
+   * any files. By default the check is not limited.
+   * 
+   * @param budget of the check.
+   */
+  public void setBudget(Budget budget) {
+    this.budget = budget;
+  }
+
+  /**
+   * Sets the name the schema is recorded with in a {@link RecursionCheckEvent}, e.g. its file
+   * name or <code>URI</code>. Is the file name, if the schema was read from a file.
+   *
+   * @param name of the schema.
+   */
+  public void setName(String name) {
+    this.name = name;
+  }
+
   /**
    * Checks whether given normalized <code>schema</code> is recursive or not. Also differs between
    * guarded and unguarded recursion. <code>schema</code> gets normalized at first.
    * 
    * @return <code>RECURSION</code>, if <code>schema</code> is recursive, <code>GUARDED</code>, if
    *         guarded recursive and else <code>NONE</code>.
+   * @throws BudgetExceededException if the check takes longer than allowed by its budget.
    */
   public RecursionType checkForRecursion() {
+    RecursionCheckEvent event = new RecursionCheckEvent();
+    event.begin();
+    long start = Metrics.start();
+    try {
+      RecursionType type = checkGraphForRecursion();
+      event.result = type.name();
+      return type;
+    } finally {
+      Metrics.stop(Metrics.RECURSION_CHECK, start);
+      if (event.isEnabled()) {
+        event.schema = name;
+        event.definitions = SchemaUtil.getDefinitions(schema).size();
+      }
+      event.commit();
+    }
+  }
+
+  /**
+   * Finds which elements of <code>schema</code> are recursive. The references between the root,
+   * which is named "#", the definitions and every other referenced element, which is named by its
+   * reference, are indexed once. An element is referenced as a whole, so a reference into a
+   * definition only leads on to the references within the referenced part. Afterwards the strongly
+   * connected components of this graph are classified and a witness cycle is taken from each
+   * recursive one in a single linear pass, see {@link ReferenceGraph}. The witnesses are found
+   * independently of {@link #checkForRecursion()}, which also takes every reference to the root as
+   * recursion. A reference to the root within a definition, which is not referenced by the root,
+   * has therefore no witness.
+   *
+   * @return a witness cycle for each recursive strongly connected component. Empty, if
+   *         <code>schema</code> is not recursive.
+   * @throws BudgetExceededException if the check takes longer than allowed by its budget.
+   * @throws InvalidReferenceException if a reference does not point to an element of
+   *         <code>schema</code>.
+   */
+  public List<Cycle> findCycles() {
+    long start = Metrics.start();
+    try {
+      return buildGraph().findCycles();
+    } finally {
+      Metrics.stop(Metrics.RECURSION_CHECK, start);
+    }
+  }
+
+  private ReferenceGraph buildGraph() {
+    ReferenceGraph graph = new ReferenceGraph();
+    // referenced elements are identified by identity, as equal definitions are distinct ones
+    Map<JsonElement, Integer> nodes = new IdentityHashMap<>();
+    List<JsonElement> elements = new ArrayList<>();
+    JsonObject root = new JsonObject();
+
+    for (Entry<String, JsonElement> entry : schema.entrySet()) {
+      if (!entry.getKey().equals("definitions")) {
+        root.add(entry.getKey(), entry.getValue());
+      }
+    }
+    nodes.put(schema, graph.addNode("#"));
+    elements.add(root);
+    for (Entry<String, JsonElement> entry : SchemaUtil.getDefinitions(schema).entrySet()) {
+      if (!nodes.containsKey(entry.getValue())) {
+        nodes.put(entry.getValue(), graph.addNode(entry.getKey()));
+        elements.add(entry.getValue());
+      }
+    }
+
+    // elements grows while references to further elements are found
+    for (int node = 0; node < elements.size(); node++) {
+      budget.checkTime();
+      for (Pointer pointer : getEdges(elements.get(node))) {
+        JsonElement referenced = pointer.getRefElement(schema);
+        Integer id = nodes.get(referenced);
+        if (id == null) {
+          id = graph.addNode(pointer.getRef());
+          nodes.put(referenced, id);
+          elements.add(referenced);
+        }
+        graph.addEdge(node, id, pointer.isGuarded());
+      }
+    }
+
+    return graph;
+  }
+
+  private RecursionType checkGraphForRecursion() {
     boolean guarded = false;
 
     for (Entry<String, JsonElement> entry : SchemaUtil.getDefinitions(schema).entrySet()) {
@@ -111,6 +229,7 @@ public class RecursionChecker {
     toBeVisited.add(node);
 
     while (!toBeVisited.isEmpty()) {
+      budget.checkTime();
       Node u = toBeVisited.remove(0);
 
       for (Pointer pointer : getEdges(u.getElement())) {
@@ -232,7 +351,17 @@ public class RecursionChecker {
    * @return <code>true</code>, if entry is guarded. <code>false</code> if not.
    */
   private boolean isEntryGuarded(Entry<String, JsonElement> entry) {
-    switch (entry.getKey()) {
+    return isKeyGuarded(entry.getKey());
+  }
+
+  /**
+   * Checks whether references within the value of <code>key</code> are guarded.
+   * 
+   * @param key of an entry.
+   * @return <code>true</code>, if references within are guarded. <code>false</code> if not.
+   */
+  static boolean isKeyGuarded(String key) {
+    switch (key) {
       case "allOf":
       case "anyOf":
       case "oneOf":
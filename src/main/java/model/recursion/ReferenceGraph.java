@@ -0,0 +1,246 @@
+package model.recursion;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Graph of the references between the definitions of a normalized schema. Recursive definitions
+ * are found by computing the strongly connected components of this graph, which takes time linear
+ * in the count of definitions and references, no matter how many definitions are recursive. A
+ * component is recursive if it contains a cycle, and unguarded recursive if it contains a cycle of
+ * unguarded references only.
+ *
+ * @author Lukas Ellinger
+ */
+public class ReferenceGraph {
+  private final List<String> names = new ArrayList<>();
+  // target node mapped to whether the edge is guarded. An unguarded reference to a target
+  // outweighs guarded ones, as the unguarded one is taken by a cycle then.
+  private final List<Map<Integer, Boolean>> edges = new ArrayList<>();
+  private int[][] targets;
+  private boolean[][] guards;
+
+  /**
+   * Adds a node named <code>name</code>.
+   *
+   * @param name of the definition.
+   * @return id of the node.
+   */
+  public int addNode(String name) {
+    names.add(name);
+    edges.add(new LinkedHashMap<>());
+    return names.size() - 1;
+  }
+
+  /**
+   * Adds a reference from node <code>from</code> to node <code>to</code>.
+   *
+   * @param from id of the referencing node.
+   * @param to id of the referenced node.
+   * @param guarded <code>true</code>, if the reference is guarded.
+   */
+  public void addEdge(int from, int to, boolean guarded) {
+    edges.get(from).merge(to, guarded, (old, added) -> old && added);
+  }
+
+  public int size() {
+    return names.size();
+  }
+
+  /**
+   * Finds a witness cycle for each recursive strongly connected component. If the component is
+   * unguarded recursive, the witness is a shortest cycle of unguarded references through its first
+   * node which is on such a cycle. Else it is a shortest cycle through its first node.
+   *
+   * @return witness cycles in the order of the first nodes of their components.
+   */
+  public List<Cycle> findCycles() {
+    toArrays();
+    int[] unguardedComponentOf = new int[size()];
+    List<int[]> unguardedComponents = findComponents(true, unguardedComponentOf);
+    int[] componentOf = new int[size()];
+    List<int[]> components = findComponents(false, componentOf);
+    List<int[]> ordered = new ArrayList<>(components);
+    ordered.sort(Comparator.comparingInt(component -> component[0]));
+    List<Cycle> cycles = new ArrayList<>();
+
+    for (int[] component : ordered) {
+      if (!isCyclic(component, false)) {
+        continue;
+      }
+
+      Cycle witness = null;
+      for (int node : component) {
+        if (isCyclic(unguardedComponents.get(unguardedComponentOf[node]), true)) {
+          witness = findShortestCycle(node, component, unguardedComponentOf, true);
+          break;
+        }
+      }
+      if (witness == null) {
+        witness = findShortestCycle(component[0], component, componentOf, false);
+      }
+      cycles.add(witness);
+    }
+
+    return cycles;
+  }
+
+  private void toArrays() {
+    targets = new int[size()][];
+    guards = new boolean[size()][];
+    for (int i = 0; i < size(); i++) {
+      targets[i] = new int[edges.get(i).size()];
+      guards[i] = new boolean[edges.get(i).size()];
+      int j = 0;
+      for (Entry<Integer, Boolean> edge : edges.get(i).entrySet()) {
+        targets[i][j] = edge.getKey();
+        guards[i][j] = edge.getValue();
+        j++;
+      }
+    }
+  }
+
+  /**
+   * Finds the strongly connected components with Tarjan's algorithm. The depth-first search is
+   * done with an explicit stack, as reference chains can be arbitrarily long.
+   *
+   * @param unguardedOnly <code>true</code>, if guarded edges should be left out.
+   * @param componentOf is filled with the index of the component of each node.
+   * @return nodes of each component in ascending order.
+   */
+  private List<int[]> findComponents(boolean unguardedOnly, int[] componentOf) {
+    int[] index = new int[size()];
+    int[] low = new int[size()];
+    int[] next = new int[size()];
+    boolean[] onStack = new boolean[size()];
+    Arrays.fill(index, -1);
+    Deque<Integer> stack = new ArrayDeque<>();
+    Deque<Integer> path = new ArrayDeque<>();
+    List<int[]> components = new ArrayList<>();
+    int counter = 0;
+
+    for (int start = 0; start < size(); start++) {
+      if (index[start] != -1) {
+        continue;
+      }
+      index[start] = low[start] = counter++;
+      stack.push(start);
+      onStack[start] = true;
+      path.push(start);
+
+      while (!path.isEmpty()) {
+        int v = path.peek();
+        if (next[v] < targets[v].length) {
+          int edge = next[v]++;
+          int w = targets[v][edge];
+          if (unguardedOnly && guards[v][edge]) {
+            continue;
+          }
+
+          if (index[w] == -1) {
+            index[w] = low[w] = counter++;
+            stack.push(w);
+            onStack[w] = true;
+            path.push(w);
+          } else if (onStack[w]) {
+            low[v] = Math.min(low[v], index[w]);
+          }
+        } else {
+          path.pop();
+          if (!path.isEmpty()) {
+            low[path.peek()] = Math.min(low[path.peek()], low[v]);
+          }
+
+          if (low[v] == index[v]) {
+            List<Integer> members = new ArrayList<>();
+            int w;
+            do {
+              w = stack.pop();
+              onStack[w] = false;
+              componentOf[w] = components.size();
+              members.add(w);
+            } while (w != v);
+            components.add(members.stream().mapToInt(Integer::intValue).sorted().toArray());
+          }
+        }
+      }
+    }
+
+    return components;
+  }
+
+  private boolean isCyclic(int[] component, boolean unguardedOnly) {
+    if (component.length > 1) {
+      return true;
+    }
+    Boolean guarded = edges.get(component[0]).get(component[0]);
+    return guarded != null && !(unguardedOnly && guarded);
+  }
+
+  /**
+   * Finds a shortest cycle through <code>start</code> by a breadth-first search, which only
+   * follows edges within the component of <code>start</code>.
+   *
+   * @param start node the cycle goes through.
+   * @param component the witness is for.
+   * @param componentOf index of the component of each node.
+   * @param unguardedOnly <code>true</code>, if guarded edges should be left out.
+   * @return cycle starting at <code>start</code>.
+   */
+  private Cycle findShortestCycle(int start, int[] component, int[] componentOf,
+      boolean unguardedOnly) {
+    Map<Integer, Integer> parents = new HashMap<>();
+    Deque<Integer> queue = new ArrayDeque<>();
+    queue.add(start);
+    parents.put(start, -1);
+
+    while (!queue.isEmpty()) {
+      int v = queue.poll();
+      for (int edge = 0; edge < targets[v].length; edge++) {
+        int w = targets[v][edge];
+        if ((unguardedOnly && guards[v][edge]) || componentOf[w] != componentOf[start]) {
+          continue;
+        }
+
+        if (w == start) {
+          return toCycle(v, parents, component);
+        } else if (!parents.containsKey(w)) {
+          parents.put(w, v);
+          queue.add(w);
+        }
+      }
+    }
+
+    throw new IllegalStateException(names.get(start) + " is on no cycle");
+  }
+
+  private Cycle toCycle(int last, Map<Integer, Integer> parents, int[] component) {
+    List<Integer> nodes = new ArrayList<>();
+    for (int v = last; v != -1; v = parents.get(v)) {
+      nodes.add(v);
+    }
+    Collections.reverse(nodes);
+
+    List<String> definitions = new ArrayList<>();
+    List<Boolean> guarded = new ArrayList<>();
+    for (int i = 0; i < nodes.size(); i++) {
+      definitions.add(names.get(nodes.get(i)));
+      guarded.add(edges.get(nodes.get(i)).get(nodes.get((i + 1) % nodes.size())));
+    }
+
+    List<String> componentNames = new ArrayList<>();
+    for (int node : component) {
+      componentNames.add(names.get(node));
+    }
+    return new Cycle(componentNames, definitions, guarded);
+  }
+}
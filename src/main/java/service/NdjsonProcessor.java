@@ -0,0 +1,113 @@
+package service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import util.Log;
+import util.Metrics;
+import util.OrderedWorkQueue;
+
+/**
+ * Normalizes and checks schemas given as JSON lines. Each input line has to be an object
+ * <code>{"id": ..., "baseUri": "...", "schema": {...}}</code>, of which only <code>schema</code>
+ * is required. For each input line one output line is written in the same order. It contains the
+ * <code>id</code> of the input and either <code>normalized</code>, <code>recursion</code> and
+ * <code>loadedFiles</code> or an <code>error</code>. Lines are processed in parallel, but only a
+ * bounded count of them is held in memory at once.
+ *
+ * @author Lukas Ellinger
+ */
+public class NdjsonProcessor {
+  private final Gson gson = new Gson();
+  private final SchemaService service;
+  private final int threads;
+  private final int window;
+
+  /**
+   *
+   * @param service to process schemas with.
+   * @param threads count of workers.
+   * @param window maximum count of lines which are processed or wait to be written at once.
+   */
+  public NdjsonProcessor(SchemaService service, int threads, int window) {
+    this.service = service;
+    this.threads = threads;
+    this.window = window;
+  }
+
+  /**
+   * Processes all lines of <code>in</code> and writes the results to <code>out</code>. Empty
+   * lines are skipped.
+   *
+   * @param in to read JSON lines from.
+   * @param out to write results to. Is flushed after each line.
+   * @return count of lines which could not be processed.
+   * @throws IOException if <code>in</code> cannot be read or <code>out</code> cannot be written.
+   * @throws InterruptedException if thread is interrupted while waiting for a result.
+   */
+  public int process(BufferedReader in, Writer out) throws IOException, InterruptedException {
+    AtomicInteger lines = new AtomicInteger();
+    AtomicInteger failed = new AtomicInteger();
+
+    try (OrderedWorkQueue<JsonObject> queue = new OrderedWorkQueue<>(threads, window, result -> {
+      if (result.has("error")) {
+        failed.incrementAndGet();
+      }
+      out.write(gson.toJson(result));
+      out.write('\n');
+      out.flush();
+    })) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        if (line.isBlank()) {
+          continue;
+        }
+
+        int lineNumber = lines.incrementAndGet();
+        String input = line;
+        queue.submit(() -> processLine(input, lineNumber));
+      }
+
+      queue.finish();
+    }
+
+    Log.info(lines.get() + " lines processed, " + failed.get() + " failed");
+    Metrics.logSummary();
+    return failed.get();
+  }
+
+  private JsonObject processLine(String line, int lineNumber) {
+    JsonElement id = null;
+    JsonObject result;
+
+    try {
+      JsonObject input = JsonParser.parseString(line).getAsJsonObject();
+      id = input.get("id");
+
+      if (!input.has("schema") || !input.get("schema").isJsonObject()) {
+        throw new JsonParseException("Line contains no schema");
+      }
+
+      URI baseUri = input.has("baseUri") && !input.get("baseUri").isJsonNull()
+          ? new URI(input.get("baseUri").getAsString())
+          : null;
+      result = service.analyse(input.getAsJsonObject("schema"), baseUri);
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      Log.warn("Line " + lineNumber, e);
+      result = SchemaService.error(e);
+    }
+
+    JsonObject output = new JsonObject();
+    output.add("id", id);
+    result.entrySet().forEach(entry -> output.add(entry.getKey(), entry.getValue()));
+    return output;
+  }
+}
@@ -0,0 +1,192 @@
+package service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import exception.BudgetExceededException;
+import exception.DistributedSchemaException;
+import exception.DraftValidationException;
+import exception.InvalidReferenceException;
+import exception.StoreException;
+import model.recursion.RecursionType;
+import util.Log;
+import util.Metrics;
+
+/**
+ * HTTP server offering normalization and recursion checking of schemas. All endpoints except
+ * <code>/metrics</code> accept a schema as body of a POST request. All answer with JSON:
+ * <ul>
+ * <li><code>/normalize</code> returns the normalized schema and all loaded files.</li>
+ * <li><code>/recursion</code> returns the <code>RecursionType</code> of the schema. If query
+ * <code>normalized=true</code> is set, the schema is not normalized before.</li>
+ * <li><code>/analyse</code> returns both.</li>
+ * <li><code>/metrics</code> returns the metrics recorded since the server was started.</li>
+ * </ul>
+ * The base uri of a schema can be set with query <code>baseUri</code>. Requests are processed by a
+ * bounded pool of workers. If all workers are busy and the queue is full, the accepting thread
+ * processes the request itself, such that no further requests are accepted meanwhile.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaServer {
+  /**
+   * Seconds requests which are currently processed get to complete when the server is stopped.
+   */
+  public static final int STOP_DELAY = 10;
+  private final HttpServer server;
+  private final ThreadPoolExecutor executor;
+  private final SchemaService service;
+  // count of requests which are currently processed
+  private final AtomicInteger active = new AtomicInteger();
+
+  /**
+   *
+   * @param port to listen on.
+   * @param threads count of workers.
+   * @param queueSize count of requests which can wait for a worker.
+   * @param service to process requests with.
+   * @throws IOException if server cannot be bound to <code>port</code>.
+   */
+  public SchemaServer(int port, int threads, int queueSize, SchemaService service)
+      throws IOException {
+    this.service = service;
+    executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueSize), new ThreadPoolExecutor.CallerRunsPolicy());
+    server = HttpServer.create(new InetSocketAddress(port), 0);
+    server.setExecutor(executor);
+    server.createContext("/normalize", exchange -> handle(exchange, "normalize"));
+    server.createContext("/recursion", exchange -> handle(exchange, "recursion"));
+    server.createContext("/analyse", exchange -> handle(exchange, "analyse"));
+    server.createContext("/metrics", exchange -> {
+      try {
+        send(exchange, 200, Metrics.toJson());
+      } finally {
+        exchange.close();
+      }
+    });
+  }
+
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  public void start() {
+    server.start();
+    Log.info("Listening on port " + getPort());
+  }
+
+  /**
+   * Stops the server. No further requests are accepted. Requests which are currently processed
+   * get {@link #STOP_DELAY} seconds to complete. Returns once all workers have finished or the
+   * delay has passed, then remaining requests are interrupted.
+   */
+  public void stop() {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STOP_DELAY);
+    // the server waits the whole delay if there is no request to wait for
+    server.stop(active.get() > 0 ? STOP_DELAY : 0);
+    executor.shutdown();
+    try {
+      if (!executor.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+        executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handle(HttpExchange exchange, String endpoint) throws IOException {
+    active.incrementAndGet();
+    try {
+      if (!exchange.getRequestMethod().equals("POST")) {
+        send(exchange, 405, SchemaService.error(
+            new UnsupportedOperationException(exchange.getRequestMethod() + " not allowed")));
+        return;
+      }
+
+      Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+      URI baseUri = query.containsKey("baseUri") ? new URI(query.get("baseUri")) : null;
+      JsonObject schema;
+      try (Reader reader =
+          new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+        schema = new Gson().fromJson(reader, JsonObject.class);
+      }
+
+      if (schema == null) {
+        throw new JsonParseException("Body contains no schema");
+      }
+
+      JsonObject result;
+      switch (endpoint) {
+        case "normalize":
+          result = service.normalize(schema, baseUri);
+          break;
+        case "recursion":
+          JsonObject normalized = Boolean.parseBoolean(query.get("normalized")) ? schema
+              : service.normalize(schema, baseUri).getAsJsonObject("normalized");
+          RecursionType type = service.checkForRecursion(normalized, baseUri);
+          result = new JsonObject();
+          result.addProperty("recursion", type.name());
+          break;
+        default:
+          result = service.analyse(schema, baseUri);
+      }
+
+      send(exchange, 200, result);
+    } catch (JsonParseException | IllegalStateException | URISyntaxException e) {
+      send(exchange, 400, SchemaService.error(e));
+    } catch (InvalidReferenceException | DraftValidationException | DistributedSchemaException
+        | StoreException | BudgetExceededException e) {
+      send(exchange, 422, SchemaService.error(e));
+    } catch (RuntimeException e) {
+      Log.severe(endpoint, e);
+      send(exchange, 500, SchemaService.error(e));
+    } finally {
+      exchange.close();
+      active.decrementAndGet();
+    }
+  }
+
+  private void send(HttpExchange exchange, int status, JsonObject body) throws IOException {
+    byte[] bytes = new Gson().toJson(body).getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    exchange.sendResponseHeaders(status, bytes.length);
+
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private Map<String, String> parseQuery(String query) {
+    Map<String, String> params = new HashMap<>();
+
+    if (query != null) {
+      for (String param : query.split("&")) {
+        int separator = param.indexOf('=');
+        if (separator != -1) {
+          params.put(URLDecoder.decode(param.substring(0, separator), StandardCharsets.UTF_8),
+              URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8));
+        }
+      }
+    }
+
+    return params;
+  }
+}
@@ -0,0 +1,112 @@
+package service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.TreeSet;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import exception.DraftValidationException;
+import model.Budget;
+import model.normalization.Normalizer;
+import model.normalization.SchemaCache;
+import model.recursion.RecursionChecker;
+import model.recursion.RecursionType;
+import util.SchemaUtil;
+
+/**
+ * Normalizes schemas and checks them for recursion without touching the disk. One instance can be
+ * used by multiple threads at the same time. Schemas loaded while normalizing are kept for the
+ * lifetime of the instance and shared by all requests. Kept local files are loaded again once
+ * they have been modified.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaService {
+  /**
+   * Base uri of schemas if none is given.
+   */
+  public static final URI DEFAULT_BASE_URI = URI.create("http://localhost/schema.json");
+  // count of loaded schemas which are kept at most
+  private static final int CACHE_SIZE = 512;
+  private final LoadSchemaDTO config;
+  private final SchemaCache cache = new SchemaCache(CACHE_SIZE);
+
+  /**
+   *
+   * @param config of how schemas should be loaded.
+   */
+  public SchemaService(LoadSchemaDTO config) {
+    this.config = config;
+  }
+
+  /**
+   * Normalizes <code>schema</code>.
+   *
+   * @param schema to be normalized. Is not altered.
+   * @param baseUri base uri of <code>schema</code>. If <code>null</code>,
+   *        <code>DEFAULT_BASE_URI</code> is used.
+   * @return result with normalized schema and all loaded files.
+   * @throws IOException if normalized schema cannot be validated.
+   */
+  public JsonObject normalize(JsonObject schema, URI baseUri) throws IOException {
+    Normalizer normalizer =
+        new Normalizer(schema, baseUri == null ? DEFAULT_BASE_URI : baseUri, config, cache);
+    JsonObject normalizedSchema = normalizer.normalize();
+
+    if (!SchemaUtil.isValidToDraft(normalizedSchema)) {
+      throw new DraftValidationException("Normalized schema is not valid to draft");
+    }
+
+    JsonObject result = new JsonObject();
+    result.add("normalized", normalizedSchema);
+    result.add("loadedFiles",
+        new Gson().toJsonTree(new TreeSet<>(normalizer.getRootSchema().getLoadedFiles())));
+    return result;
+  }
+
+  /**
+   * Normalizes <code>schema</code> and checks it for recursion.
+   *
+   * @param schema to be normalized and checked. Is not altered.
+   * @param baseUri base uri of <code>schema</code>. If <code>null</code>,
+   *        <code>DEFAULT_BASE_URI</code> is used.
+   * @return result with normalized schema, all loaded files and its <code>RecursionType</code>.
+   * @throws IOException if normalized schema cannot be validated.
+   */
+  public JsonObject analyse(JsonObject schema, URI baseUri) throws IOException {
+    JsonObject result = normalize(schema, baseUri);
+    RecursionType type = checkForRecursion(result.getAsJsonObject("normalized"), baseUri);
+    result.addProperty("recursion", type.name());
+    return result;
+  }
+
+  /**
+   * Checks <code>schema</code> for recursion. The check has its own wall time limited by
+   * <code>config</code>.
+   *
+   * @param normalizedSchema has to be normalized.
+   * @param baseUri base uri of the schema, which it is named by. If <code>null</code>,
+   *        <code>DEFAULT_BASE_URI</code> is used.
+   * @return <code>RecursionType</code> of <code>normalizedSchema</code>.
+   */
+  public RecursionType checkForRecursion(JsonObject normalizedSchema, URI baseUri) {
+    RecursionChecker checker = new RecursionChecker(normalizedSchema);
+    checker.setName(String.valueOf(baseUri == null ? DEFAULT_BASE_URI : baseUri));
+    checker.setBudget(new Budget(config));
+    return checker.checkForRecursion();
+  }
+
+  /**
+   * Creates the result of a schema which could not be processed.
+   *
+   * @param throwable which occurred while processing.
+   * @return result with error message.
+   */
+  public static JsonObject error(Throwable throwable) {
+    JsonObject result = new JsonObject();
+    result.addProperty("error",
+        throwable.getClass().getSimpleName() + ": " + throwable.getMessage());
+    return result;
+  }
+}
@@ -0,0 +1,183 @@
+package util;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import exception.InvalidIdentifierException;
+
+/**
+ * Interned <code>URI</code> whose derived forms are computed once. While references are resolved,
+ * the same few resolution scopes are resolved against the same references, and their fragments,
+ * trailing hashes and parents are removed again and again. Instances are interned by their string
+ * form, such that all of these results are shared between all users of an <code>URI</code>.
+ * <p>
+ * Derived forms are exactly the ones the methods of {@link URIUtil} returned before, such that the
+ * string form of every <code>URI</code> stays the same.
+ *
+ * @author Lukas Ellinger
+ */
+public final class CanonicalURI {
+  // interned URIs and cached resolutions are dropped once there are more, as long running modes
+  // would collect them otherwise
+  static final int MAX_INTERNED = 1 << 14;
+  private static final int MAX_RESOLVED = 1 << 8;
+  private static final Map<String, CanonicalURI> INTERNED = new ConcurrentHashMap<>();
+
+  private final URI uri;
+  private final String string;
+  private final Map<String, CanonicalURI> resolved = new ConcurrentHashMap<>();
+  private volatile CanonicalURI withoutTrailingHash;
+  private volatile CanonicalURI withoutFragment;
+  private volatile CanonicalURI parent;
+
+  private CanonicalURI(URI uri, String string) {
+    this.uri = uri;
+    this.string = string;
+  }
+
+  /**
+   * Gets the interned instance of <code>uri</code>.
+   *
+   * @param uri to be interned.
+   * @return interned instance with the same string form as <code>uri</code>.
+   */
+  public static CanonicalURI of(URI uri) {
+    String string = uri.toString();
+    CanonicalURI canonical = INTERNED.get(string);
+    if (canonical != null) {
+      return canonical;
+    }
+
+    if (INTERNED.size() >= MAX_INTERNED) {
+      INTERNED.clear();
+    }
+    CanonicalURI created = new CanonicalURI(uri, string);
+    canonical = INTERNED.putIfAbsent(string, created);
+    // another thread may clear the map right after the put, so the map is not read again
+    return canonical != null ? canonical : created;
+  }
+
+  /**
+   * Gets the <code>URI</code> of this.
+   *
+   * @return interned <code>URI</code>.
+   */
+  public URI toURI() {
+    return uri;
+  }
+
+  /**
+   * Resolves <code>ref</code> against this, like {@link URI#resolve(String)}.
+   *
+   * @param ref to be resolved.
+   * @return resolved <code>URI</code>.
+   * @throws IllegalArgumentException if <code>ref</code> is no valid URI.
+   */
+  public CanonicalURI resolve(String ref) {
+    CanonicalURI result = resolved.get(ref);
+    if (result == null) {
+      result = of(uri.resolve(ref));
+      if (resolved.size() < MAX_RESOLVED) {
+        resolved.put(ref, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Resolves <code>ref</code> against this, like {@link URI#resolve(URI)}.
+   *
+   * @param ref to be resolved.
+   * @return resolved <code>URI</code>.
+   */
+  public CanonicalURI resolve(URI ref) {
+    return resolve(ref.toString());
+  }
+
+  /**
+   * Gets this without an ending #. See {@link URIUtil#removeTrailingHash(URI)}.
+   *
+   * @return this without an ending #.
+   */
+  public CanonicalURI withoutTrailingHash() {
+    CanonicalURI result = withoutTrailingHash;
+    if (result == null) {
+      if (string.endsWith("#")) {
+        try {
+          result = of(new URI(string.substring(0, string.length() - 1)));
+        } catch (URISyntaxException e) {
+          throw new IllegalArgumentException(string + " is no valid uri");
+        }
+      } else {
+        result = this;
+      }
+      withoutTrailingHash = result;
+    }
+    return result;
+  }
+
+  /**
+   * Gets this without its fragment. See {@link URIUtil#removeFragment(URI)}.
+   *
+   * @return this without its fragment.
+   */
+  public CanonicalURI withoutFragment() {
+    CanonicalURI result = withoutFragment;
+    if (result == null) {
+      try {
+        result = of(new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), uri.getQuery(),
+            null));
+      } catch (URISyntaxException e) {
+        throw new InvalidIdentifierException(string + " without fragment is no valid uri");
+      }
+      withoutFragment = result;
+    }
+    return result;
+  }
+
+  /**
+   * Gets this with the parent path. See {@link URIUtil#getParentURI(URI)}.
+   *
+   * @return this with the parent path.
+   */
+  public CanonicalURI parent() {
+    CanonicalURI result = parent;
+    if (result == null) {
+      try {
+        result = of(new URI(uri.getScheme(), uri.getAuthority(), getParent(uri.getPath()),
+            uri.getQuery(), uri.getFragment()));
+      } catch (URISyntaxException e) {
+        throw new InvalidIdentifierException("Parent URI of " + string + " is no valid URI");
+      }
+      parent = result;
+    }
+    return result;
+  }
+
+  private static String getParent(String resourcePath) {
+    int index = resourcePath.lastIndexOf('/');
+    if (index > 0) {
+      return resourcePath.substring(0, index);
+    }
+    return "/";
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    return obj instanceof CanonicalURI && uri.equals(((CanonicalURI) obj).uri);
+  }
+
+  @Override
+  public int hashCode() {
+    return uri.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return string;
+  }
+}
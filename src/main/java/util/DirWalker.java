@@ -0,0 +1,144 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Stream;
+
+/**
+ * Iterates over the regular files of a directory while it is still being listed. A separate thread
+ * walks the directory and hands the files over a bounded queue, such that work on the first files
+ * starts immediately and the memory needed stays bounded regardless of the count of files. Files
+ * are given in no particular order and can only be iterated once. Files which are deleted during
+ * the iteration may or may not be given.
+ *
+ * @author Lukas Ellinger
+ */
+public class DirWalker implements Iterable<File>, AutoCloseable {
+  /**
+   * Default maximum count of listed files which wait to be iterated.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final File END = new File("");
+
+  private final BlockingQueue<File> queue;
+  private final Thread walker;
+  private volatile IOException failure;
+  private boolean iterated = false;
+
+  /**
+   *
+   * @param dir directory to iterate over.
+   * @param recursive <code>true</code>, if files in subdirectories should be given, too.
+   *        <code>false</code>, if only files directly in <code>dir</code> should be given.
+   */
+  public DirWalker(File dir, boolean recursive) {
+    this(dir, recursive, DEFAULT_CAPACITY);
+  }
+
+  /**
+   *
+   * @param dir directory to iterate over.
+   * @param recursive <code>true</code>, if files in subdirectories should be given, too.
+   *        <code>false</code>, if only files directly in <code>dir</code> should be given.
+   * @param capacity maximum count of listed files which wait to be iterated. Has to be at least 1.
+   */
+  public DirWalker(File dir, boolean recursive, int capacity) {
+    if (!dir.isDirectory()) {
+      throw new IllegalArgumentException(dir.getName() + " needs to be a directory");
+    }
+
+    queue = new ArrayBlockingQueue<>(capacity);
+    walker = new Thread(() -> walk(dir.toPath(), recursive ? Integer.MAX_VALUE : 1),
+        "DirWalker-" + dir.getName());
+    walker.setDaemon(true);
+    walker.start();
+  }
+
+  /**
+   * Gets an iterator over all regular files. Its methods throw an
+   * <code>UncheckedIOException</code>, if the directory cannot be listed.
+   *
+   * @throws IllegalStateException if called more than once.
+   */
+  @Override
+  public Iterator<File> iterator() {
+    if (iterated) {
+      throw new IllegalStateException("Files can only be iterated once");
+    }
+    iterated = true;
+
+    return new Iterator<>() {
+      private File next;
+
+      @Override
+      public boolean hasNext() {
+        if (next == null) {
+          try {
+            next = queue.take();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while listing files", e);
+          }
+        }
+
+        if (next == END) {
+          if (failure != null) {
+            throw new UncheckedIOException(failure);
+          }
+          return false;
+        }
+        return true;
+      }
+
+      @Override
+      public File next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        File file = next;
+        next = null;
+        return file;
+      }
+    };
+  }
+
+  /**
+   * Stops listing files, if not all of them have been iterated.
+   */
+  @Override
+  public void close() {
+    walker.interrupt();
+  }
+
+  private void walk(Path dir, int maxDepth) {
+    try (Stream<Path> paths = Files.walk(dir, maxDepth)) {
+      Iterator<Path> iterator = paths.iterator();
+      while (iterator.hasNext()) {
+        Path path = iterator.next();
+        if (Files.isRegularFile(path)) {
+          queue.put(path.toFile());
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+    } catch (UncheckedIOException e) {
+      failure = e.getCause();
+    } catch (InterruptedException e) {
+      return;
+    }
+
+    try {
+      queue.put(END);
+    } catch (InterruptedException e) {
+      // iteration was stopped
+    }
+  }
+}
@@ -0,0 +1,333 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.apache.commons.io.FileUtils;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import dto.LoadSchemaDTO;
+import exception.StoreException;
+
+/**
+ * Records which inputs every normalized schema of a directory was created from. For each root
+ * schema the content hash of its file and of every loaded dependency is stored together with the
+ * settings of the <code>LoadSchemaDTO</code> used. This allows to only normalize those schemas
+ * again whose own content or any dependency has changed.
+ *
+ * @author Lukas Ellinger
+ */
+public class Manifest {
+  private static final String UNKNOWN = "";
+  private final JsonObject settings;
+  private final JsonObject schemas;
+  private final Map<String, String> hashes = new TreeMap<>();
+
+  /**
+   * Creates an empty manifest for schemas being normalized with <code>config</code>.
+   *
+   * @param config of how schemas are loaded.
+   */
+  public Manifest(LoadSchemaDTO config) {
+    this.settings = settingsOf(config);
+    this.schemas = new JsonObject();
+  }
+
+  private Manifest(JsonObject settings, JsonObject schemas) {
+    this.settings = settings;
+    this.schemas = schemas;
+  }
+
+  /**
+   * Loads the manifest stored in <code>file</code>. If <code>file</code> does not exist, cannot be
+   * parsed or was created with other settings than <code>config</code>, an empty manifest is
+   * returned, such that all schemas are normalized again.
+   *
+   * @param file in which the manifest is stored.
+   * @param config of how schemas are loaded.
+   * @return stored manifest or an empty one.
+   * @throws IOException if <code>file</code> cannot be read.
+   */
+  public static Manifest load(File file, LoadSchemaDTO config) throws IOException {
+    if (!file.exists()) {
+      return new Manifest(config);
+    }
+
+    try {
+      JsonObject stored =
+          new Gson().fromJson(FileUtils.readFileToString(file, "UTF-8"), JsonObject.class);
+      JsonObject settings = settingsOf(config);
+
+      if (stored != null && settings.equals(stored.get("settings"))
+          && stored.has("schemas") && stored.get("schemas").isJsonObject()) {
+        return new Manifest(settings, stored.getAsJsonObject("schemas"));
+      } else {
+        Log.info(file.getName() + " was created with other settings. All schemas are normalized");
+        return new Manifest(config);
+      }
+    } catch (JsonSyntaxException e) {
+      Log.warn(file, e);
+      return new Manifest(config);
+    }
+  }
+
+  /**
+   * Stores this manifest in <code>file</code>.
+   *
+   * @param file to store manifest in.
+   * @throws IOException if it cannot be written to <code>file</code>.
+   */
+  public void save(File file) throws IOException {
+    JsonObject manifest = new JsonObject();
+    manifest.add("settings", settings);
+    manifest.add("schemas", schemas);
+    SchemaUtil.writeJsonToFile(manifest, file);
+  }
+
+  /**
+   * Checks whether the normalized schema of <code>schema</code> is up to date. This is the case if
+   * it was normalized with base uri <code>uri</code>, its output still exists in
+   * <code>normalizedDir</code> and neither the content of <code>schema</code> nor of any of its
+   * dependencies has changed since.
+   *
+   * @param schema root schema to be checked.
+   * @param uri base uri the schema gets normalized with.
+   * @param normalizedDir directory of normalized schemas.
+   * @return <code>true</code>, if the stored normalized schema is up to date. <code>false</code>,
+   *         if not.
+   */
+  public boolean isUpToDate(File schema, URI uri, File normalizedDir) {
+    if (!schemas.has(schema.getName())) {
+      return false;
+    }
+
+    JsonObject entry = schemas.getAsJsonObject(schema.getName());
+    if (!entry.get("uri").getAsString().equals(uri.toString())
+        || !new File(normalizedDir, entry.get("output").getAsString()).exists()
+        || !entry.get("hash").getAsString().equals(hashOf(schema))) {
+      return false;
+    }
+
+    for (Entry<String, JsonElement> dependency : entry.getAsJsonObject("dependencies")
+        .entrySet()) {
+      if (!dependency.getValue().getAsString().equals(hashOf(dependency.getKey()))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Records that <code>schema</code> has been normalized to <code>output</code>.
+   *
+   * @param schema root schema which has been normalized.
+   * @param uri base uri the schema was normalized with.
+   * @param output file name of the normalized schema.
+   * @param loadedFiles <code>URIs</code> of all schemas loaded for normalization.
+   */
+  public void record(File schema, URI uri, String output, Set<String> loadedFiles) {
+    JsonObject dependencies = new JsonObject();
+    for (String loadedFile : new TreeSet<>(loadedFiles)) {
+      if (!loadedFile.equals(uri.toString())) {
+        dependencies.addProperty(loadedFile, hashOf(loadedFile));
+      }
+    }
+
+    JsonObject entry = new JsonObject();
+    entry.addProperty("uri", uri.toString());
+    entry.addProperty("output", output);
+    entry.addProperty("hash", hashOf(schema));
+    entry.add("dependencies", dependencies);
+    schemas.add(schema.getName(), entry);
+  }
+
+  /**
+   * Gets the dependencies recorded for <code>schemaName</code>. These are all loaded schemas except
+   * the root schema itself.
+   *
+   * @param schemaName file name of root schema.
+   * @return <code>URIs</code> of the dependencies. Empty, if there is no entry.
+   */
+  public Set<String> getDependencies(String schemaName) {
+    if (!schemas.has(schemaName)) {
+      return Set.of();
+    }
+    return new TreeSet<>(schemas.getAsJsonObject(schemaName).getAsJsonObject("dependencies")
+        .keySet());
+  }
+
+  /**
+   * Removes the entry of <code>schemaName</code> and deletes its normalized schema in
+   * <code>normalizedDir</code>. If there is no entry, the normalized schema with the default name
+   * is deleted, compressed or not.
+   *
+   * @param schemaName file name of root schema.
+   * @param normalizedDir directory of normalized schemas.
+   */
+  public void remove(String schemaName, File normalizedDir) {
+    if (schemas.has(schemaName)) {
+      new File(normalizedDir, schemas.getAsJsonObject(schemaName).get("output").getAsString())
+          .delete();
+      schemas.remove(schemaName);
+    } else {
+      String normalizedFileName = SchemaUtil.getNormalizedFileName(schemaName);
+      new File(normalizedDir, normalizedFileName).delete();
+      new File(normalizedDir, normalizedFileName + SchemaUtil.GZIP_SUFFIX).delete();
+    }
+  }
+
+  /**
+   * Removes all entries whose root schema is not contained in <code>schemaNames</code> and deletes
+   * their stale normalized schemas in <code>normalizedDir</code>.
+   *
+   * @param schemaNames file names of all root schemas which still exist.
+   * @param normalizedDir directory of normalized schemas.
+   * @return count of removed entries.
+   */
+  public int retainAll(Collection<String> schemaNames, File normalizedDir) {
+    int count = 0;
+    Iterator<String> iterator = schemas.keySet().iterator();
+
+    while (iterator.hasNext()) {
+      String schemaName = iterator.next();
+      if (!schemaNames.contains(schemaName)) {
+        new File(normalizedDir, schemas.getAsJsonObject(schemaName).get("output").getAsString())
+            .delete();
+        iterator.remove();
+        count++;
+      }
+    }
+
+    return count;
+  }
+
+  /**
+   * Gets the file names of all root schemas which loaded <code>uri</code> during normalization.
+   *
+   * @param uri of dependency.
+   * @return file names of all root schemas depending on <code>uri</code>.
+   */
+  public Set<String> getDependents(String uri) {
+    Set<String> dependents = new TreeSet<>();
+
+    for (String schemaName : schemas.keySet()) {
+      if (schemas.getAsJsonObject(schemaName).getAsJsonObject("dependencies").has(uri)) {
+        dependents.add(schemaName);
+      }
+    }
+
+    return dependents;
+  }
+
+  /**
+   * Discards the cached content hash of <code>uri</code>, e.g. because its content has changed.
+   *
+   * @param uri of which the content hash should be computed again.
+   */
+  public void invalidate(String uri) {
+    hashes.remove(uri);
+  }
+
+  /**
+   * Writes the lineage of all recorded schemas to <code>csvLineage</code>. Existing content of
+   * <code>csvLineage</code> is replaced.
+   *
+   * @param csvLineage csv-file of where to store lineage.
+   * @throws IOException if it cannot be written to <code>csvLineage</code>.
+   */
+  public void writeLineage(File csvLineage) throws IOException {
+    Files.write(csvLineage.toPath(), new byte[0], StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+
+    for (String schemaName : schemas.keySet()) {
+      JsonObject entry = schemas.getAsJsonObject(schemaName);
+      Set<String> loadedFiles = new HashSet<>(entry.getAsJsonObject("dependencies").keySet());
+      loadedFiles.add(entry.get("uri").getAsString());
+      String[] csvEntry =
+          {entry.get("output").getAsString(), entry.get("uri").getAsString(), loadedFiles.toString()};
+      CSVUtil.writeToCSV(csvLineage, csvEntry);
+    }
+  }
+
+  /**
+   * Gets the content hash of the schema at <code>uri</code>. Local files are hashed directly,
+   * remote schemas are hashed via their file in the <code>Store</code>. If a remote schema is not
+   * in the <code>Store</code>, it is assumed to be immutable.
+   *
+   * @param uri of schema to be hashed.
+   * @return content hash of the schema at <code>uri</code>.
+   */
+  private String hashOf(String uri) {
+    return hashes.computeIfAbsent(uri, key -> {
+      try {
+        URI location = new URI(key);
+
+        if ("file".equals(location.getScheme())) {
+          File file = new File(location);
+          return file.exists() ? hashOf(file) : UNKNOWN;
+        } else {
+          return hashOf(Store.getFile(location));
+        }
+      } catch (URISyntaxException | IllegalArgumentException | StoreException e) {
+        return UNKNOWN;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  private static String hashOf(File file) {
+    try {
+      return com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()).toString();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static JsonObject settingsOf(LoadSchemaDTO config) {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("allowDistributedSchemas", config.isAllowDistributedSchemas());
+    settings.addProperty("fetchSchemasOnline", config.isFetchSchemasOnline());
+    settings.addProperty("repType", String.valueOf(config.getRepType()));
+    if (config.hasLinksToPermalinks()) {
+      settings.add("linksToPermalinks", new Gson().toJsonTree(config.getLinksToPermalinks()));
+    }
+    if (config.isCompactOutput()) {
+      // normalized files have to be written again, if the format changes
+      settings.addProperty("compactOutput", true);
+    }
+    if (config.isGzipOutput()) {
+      settings.addProperty("gzipOutput", true);
+    }
+    // schemas which exceeded the budget before may fit another one and the other way round
+    if (config.getMaxMillis() != 0) {
+      settings.addProperty("maxMillis", config.getMaxMillis());
+    }
+    if (config.getMaxDefinitions() != 0) {
+      settings.addProperty("maxDefinitions", config.getMaxDefinitions());
+    }
+    if (config.getMaxLoadedFiles() != 0) {
+      settings.addProperty("maxLoadedFiles", config.getMaxLoadedFiles());
+    }
+    if (config.getMaxDepth() != 0) {
+      settings.addProperty("maxDepth", config.getMaxDepth());
+    }
+    return settings;
+  }
+}
@@ -0,0 +1,207 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.commons.io.FileUtils;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+
+/**
+ * Registry of counters, timers and histograms of the current process. All methods can be called
+ * by multiple threads at the same time. Timers are histograms of durations in nanoseconds.
+ * Durations of phases include the durations of all phases nested in them, e.g. <code>load</code>
+ * includes <code>convert</code> and <code>traverse</code> includes <code>resolveRef</code>. All
+ * metrics are also added to the {@link SchemaProfile} of the recording thread, if there is one.
+ *
+ * @author Lukas Ellinger
+ */
+public class Metrics {
+  public static final String LOAD = "load";
+  public static final String CONVERT = "convert";
+  public static final String TRAVERSE = "traverse";
+  public static final String RESOLVE_REF = "resolveRef";
+  public static final String DRAFT_VALIDATION = "draftValidation";
+  public static final String WRITE = "write";
+  public static final String RECURSION_CHECK = "recursionCheck";
+
+  private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> timers = new ConcurrentHashMap<>();
+  private static final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+  private Metrics() {}
+
+  /**
+   * Starts timing a phase.
+   *
+   * @return start time which has to be passed to {@link #stop(String, long)}.
+   */
+  public static long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the duration of a phase.
+   *
+   * @param timer name of phase.
+   * @param start time returned by {@link #start()} when phase was started.
+   */
+  public static void stop(String timer, long start) {
+    long duration = System.nanoTime() - start;
+    timers.computeIfAbsent(timer, name -> new Histogram()).record(duration);
+    SchemaProfile.recordTime(timer, duration);
+  }
+
+  public static void increment(String counter) {
+    add(counter, 1);
+  }
+
+  public static void add(String counter, long value) {
+    counters.computeIfAbsent(counter, name -> new LongAdder()).add(value);
+    SchemaProfile.record(counter, value);
+  }
+
+  /**
+   * Records a value in a histogram.
+   *
+   * @param histogram name of histogram.
+   * @param value to be recorded. Has to be at least 0.
+   */
+  public static void record(String histogram, long value) {
+    histograms.computeIfAbsent(histogram, name -> new Histogram()).record(value);
+    SchemaProfile.record(histogram, value);
+  }
+
+  /**
+   * Removes all recorded metrics.
+   */
+  public static void reset() {
+    counters.clear();
+    timers.clear();
+    histograms.clear();
+  }
+
+  /**
+   * Logs all recorded metrics. Durations are logged in milliseconds.
+   */
+  public static void logSummary() {
+    Log.info("Metrics:");
+    new TreeMap<>(timers).forEach((name, timer) -> Log.info(String.format(
+        "%s: count %d, total %.1f ms, mean %.3f ms, p50 <= %.3f ms, p99 <= %.3f ms, max %.3f ms",
+        name, timer.getCount(), millis(timer.getSum()), millis(timer.getMean()),
+        millis(timer.getPercentile(0.5)), millis(timer.getPercentile(0.99)),
+        millis(timer.getMax()))));
+    new TreeMap<>(histograms).forEach((name, histogram) -> Log.info(String.format(
+        "%s: count %d, mean %.1f, p50 <= %d, p99 <= %d, max %d", name, histogram.getCount(),
+        histogram.getMean(), histogram.getPercentile(0.5), histogram.getPercentile(0.99),
+        histogram.getMax())));
+    new TreeMap<>(counters).forEach((name, counter) -> Log.info(name + ": " + counter.sum()));
+    Log.info("----------------------------------");
+  }
+
+  /**
+   * Gets all recorded metrics. Durations are given in nanoseconds.
+   *
+   * @return <code>JsonObject</code> with <code>counters</code>, <code>timers</code> and
+   *         <code>histograms</code>.
+   */
+  public static JsonObject toJson() {
+    JsonObject countersJson = new JsonObject();
+    new TreeMap<>(counters)
+        .forEach((name, counter) -> countersJson.addProperty(name, counter.sum()));
+    JsonObject timersJson = new JsonObject();
+    new TreeMap<>(timers).forEach((name, timer) -> timersJson.add(name, timer.toJson()));
+    JsonObject histogramsJson = new JsonObject();
+    new TreeMap<>(histograms)
+        .forEach((name, histogram) -> histogramsJson.add(name, histogram.toJson()));
+
+    JsonObject report = new JsonObject();
+    report.add("counters", countersJson);
+    report.add("timers", timersJson);
+    report.add("histograms", histogramsJson);
+    return report;
+  }
+
+  /**
+   * Writes all recorded metrics as JSON to <code>file</code>. See {@link #toJson()}.
+   *
+   * @param file to write to. Is overwritten if it exists.
+   * @throws IOException if <code>file</code> cannot be written.
+   */
+  public static void writeReport(File file) throws IOException {
+    FileUtils.writeStringToFile(file,
+        new GsonBuilder().setPrettyPrinting().create().toJson(toJson()), "UTF-8");
+  }
+
+  private static double millis(double nanos) {
+    return nanos / 1_000_000;
+  }
+
+  /**
+   * Histogram with buckets of powers of two. Percentiles are given as upper bound of the bucket
+   * they fall into.
+   */
+  private static class Histogram {
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    // bucket i contains values v with 2^(i - 1) <= v < 2^i, bucket 0 contains 0
+    private final AtomicLongArray buckets = new AtomicLongArray(64);
+
+    void record(long value) {
+      value = Math.max(value, 0);
+      count.increment();
+      sum.add(value);
+      max.accumulate(value);
+      buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+    }
+
+    long getCount() {
+      return count.sum();
+    }
+
+    long getSum() {
+      return sum.sum();
+    }
+
+    long getMax() {
+      return max.get();
+    }
+
+    double getMean() {
+      long n = getCount();
+      return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    long getPercentile(double percentile) {
+      long rank = (long) Math.ceil(percentile * getCount());
+      long seen = 0;
+
+      for (int i = 0; i < buckets.length(); i++) {
+        seen += buckets.get(i);
+        if (seen >= rank && seen > 0) {
+          return i == 0 ? 0 : Math.min(1L << Math.min(i, 62), getMax());
+        }
+      }
+
+      return getMax();
+    }
+
+    JsonObject toJson() {
+      JsonObject json = new JsonObject();
+      json.addProperty("count", getCount());
+      json.addProperty("sum", getSum());
+      json.addProperty("mean", getMean());
+      json.addProperty("p50", getPercentile(0.5));
+      json.addProperty("p90", getPercentile(0.9));
+      json.addProperty("p99", getPercentile(0.99));
+      json.addProperty("max", getMax());
+      return json;
+    }
+  }
+}
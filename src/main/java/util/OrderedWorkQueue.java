@@ -0,0 +1,96 @@
+package util;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Processes tasks in parallel and hands their results to a sink in the order in which the tasks
+ * were submitted. At most <code>window</code> tasks are pending at once. If the window is full,
+ * <code>submit</code> blocks until the oldest task is completed and its result has been consumed,
+ * such that the memory needed stays bounded regardless of the count of tasks.
+ *
+ * @author Lukas Ellinger
+ * @param <T> type of results.
+ */
+public class OrderedWorkQueue<T> implements AutoCloseable {
+  private final ExecutorService executor;
+  private final Deque<Future<T>> pending = new ArrayDeque<>();
+  private final int window;
+  private final Sink<T> sink;
+
+  /**
+   * Consumer of results which may throw an <code>IOException</code>.
+   *
+   * @param <T> type of results.
+   */
+  @FunctionalInterface
+  public interface Sink<T> {
+    void accept(T result) throws IOException;
+  }
+
+  /**
+   *
+   * @param threads count of workers.
+   * @param window maximum count of pending tasks. Has to be at least 1.
+   * @param sink consumes results in order of submission. Is only called by the thread which
+   *        submits tasks.
+   */
+  public OrderedWorkQueue(int threads, int window, Sink<T> sink) {
+    if (threads < 1 || window < 1) {
+      throw new IllegalArgumentException("threads and window need to be at least 1");
+    }
+
+    executor = Executors.newFixedThreadPool(threads);
+    this.window = window;
+    this.sink = sink;
+  }
+
+  /**
+   * Submits <code>task</code>. Blocks while <code>window</code> tasks are pending.
+   *
+   * @param task to be processed. Should handle its own failures, as an exception thrown by it
+   *        aborts the processing of all further results.
+   * @throws IOException if sink cannot consume a result.
+   * @throws InterruptedException if thread is interrupted while waiting for a result.
+   */
+  public void submit(Callable<T> task) throws IOException, InterruptedException {
+    while (pending.size() >= window) {
+      consumeOldest();
+    }
+
+    pending.add(executor.submit(task));
+  }
+
+  /**
+   * Waits until all pending tasks are completed and their results have been consumed.
+   *
+   * @throws IOException if sink cannot consume a result.
+   * @throws InterruptedException if thread is interrupted while waiting for a result.
+   */
+  public void finish() throws IOException, InterruptedException {
+    while (!pending.isEmpty()) {
+      consumeOldest();
+    }
+  }
+
+  @Override
+  public void close() {
+    pending.forEach(future -> future.cancel(true));
+    pending.clear();
+    executor.shutdownNow();
+  }
+
+  private void consumeOldest() throws IOException, InterruptedException {
+    try {
+      sink.accept(pending.poll().get());
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Task failed", e.getCause());
+    }
+  }
+}
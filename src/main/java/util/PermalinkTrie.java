@@ -0,0 +1,121 @@
+package util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Trie of link prefixes mapped to permalink prefixes. A link is rewritten by replacing its longest
+ * prefix in the trie by the corresponding permalink prefix, which needs a single walk along the
+ * characters of the link regardless of the count of prefixes. It is counted how often each prefix
+ * has been used for rewriting. All methods can be called by multiple threads at the same time.
+ *
+ * @author Lukas Ellinger
+ */
+public class PermalinkTrie {
+  private final Node root = new Node();
+  private final int size;
+
+  /**
+   * Compiles <code>linksToPermalinks</code> into a trie.
+   *
+   * @param linksToPermalinks link prefixes mapped to permalink prefixes.
+   */
+  public PermalinkTrie(Map<String, String> linksToPermalinks) {
+    for (Map.Entry<String, String> entry : linksToPermalinks.entrySet()) {
+      Node node = root;
+      for (int i = 0; i < entry.getKey().length(); i++) {
+        node = node.children.computeIfAbsent(entry.getKey().charAt(i), c -> new Node());
+      }
+      node.prefix = entry.getKey();
+      node.permalink = entry.getValue();
+    }
+    size = linksToPermalinks.size();
+  }
+
+  /**
+   * Checks whether a prefix of <code>link</code> is in this.
+   *
+   * @param link to be checked.
+   * @return <code>true</code>, if <code>link</code> can be rewritten.
+   */
+  public boolean matches(String link) {
+    return longestPrefix(link) != null;
+  }
+
+  /**
+   * Replaces the longest prefix of <code>link</code> in this by its permalink prefix.
+   *
+   * @param link to be rewritten.
+   * @return rewritten <code>link</code>. <code>null</code>, if no prefix of <code>link</code> is in
+   *         this.
+   */
+  public String rewrite(String link) {
+    Node node = longestPrefix(link);
+    if (node == null) {
+      return null;
+    }
+
+    node.uses.increment();
+    return node.permalink + link.substring(node.prefix.length());
+  }
+
+  private Node longestPrefix(String link) {
+    Node node = root;
+    Node longest = root.prefix != null ? root : null;
+
+    for (int i = 0; i < link.length() && node != null; i++) {
+      node = node.children.get(link.charAt(i));
+      if (node != null && node.prefix != null) {
+        longest = node;
+      }
+    }
+
+    return longest;
+  }
+
+  /**
+   * Gets all prefixes which have been used for rewriting.
+   *
+   * @return used prefixes mapped to how often they have been used, sorted by prefix.
+   */
+  public Map<String, Long> getUsedPrefixes() {
+    Map<String, Long> used = new TreeMap<>();
+    collectUsed(root, used);
+    return used;
+  }
+
+  private static void collectUsed(Node start, Map<String, Long> used) {
+    Deque<Node> stack = new ArrayDeque<>();
+    stack.push(start);
+    while (!stack.isEmpty()) {
+      Node node = stack.pop();
+      long uses = node.uses.sum();
+      if (node.prefix != null && uses > 0) {
+        used.put(node.prefix, uses);
+      }
+      node.children.values().forEach(stack::push);
+    }
+  }
+
+  /**
+   * Logs how many of the prefixes of this have been used and how often each used one has been
+   * used.
+   */
+  public void logUsage() {
+    Map<String, Long> used = getUsedPrefixes();
+    Log.info("Permalink prefixes used: " + used.size() + " of " + size);
+    used.forEach((prefix, uses) -> Log.info("  " + prefix + ": " + uses));
+  }
+
+  private static class Node {
+    private final Map<Character, Node> children = new HashMap<>();
+    private final LongAdder uses = new LongAdder();
+    // link prefix ending at this node. null, if no prefix ends here.
+    private String prefix;
+    private String permalink;
+  }
+}
@@ -0,0 +1,174 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Profile of the normalization of a single root schema. A profile is bound to the thread which
+ * began it. All metrics recorded by this thread via {@link Metrics} until the profile is ended are
+ * also added to it, such that pathological schemas can be found. Work done for the schema by
+ * another thread, e.g. writing it, is added by attaching the profile to that thread.
+ *
+ * @author Lukas Ellinger
+ */
+public class SchemaProfile {
+  private static final ThreadLocal<SchemaProfile> current = new ThreadLocal<>();
+  private static final String[] PHASES = {Metrics.LOAD, Metrics.CONVERT, Metrics.TRAVERSE,
+      Metrics.RESOLVE_REF, Metrics.DRAFT_VALIDATION, Metrics.WRITE};
+  private static final String[] HEAD = {"name", "uri", "status", "total_ms", "load_ms",
+      "convert_ms", "traverse_ms", "resolveRef_ms", "draftValidation_ms", "write_ms", "input_bytes",
+      "output_bytes", "refs_resolved", "files_loaded", "definitions_added", "max_depth",
+      "visited_nodes"};
+
+  private final String name;
+  private final String uri;
+  private final long start = System.nanoTime();
+  private long total;
+  private boolean ended = false;
+  private String status = "OK";
+  private final Map<String, Long> times = new HashMap<>();
+  private final Map<String, Long> timeCounts = new HashMap<>();
+  private final Map<String, Long> values = new HashMap<>();
+
+  private SchemaProfile(String name, String uri) {
+    this.name = name;
+    this.uri = uri;
+  }
+
+  /**
+   * Begins a profile for the current thread. An already begun profile of the thread is replaced.
+   *
+   * @param name of root schema.
+   * @param uri of root schema.
+   * @return begun profile.
+   */
+  public static SchemaProfile begin(String name, String uri) {
+    SchemaProfile profile = new SchemaProfile(name, uri);
+    current.set(profile);
+    return profile;
+  }
+
+  /**
+   * Ends the profile of the current thread.
+   *
+   * @return ended profile or <code>null</code>, if none was begun.
+   */
+  public static SchemaProfile end() {
+    SchemaProfile profile = current.get();
+    current.remove();
+
+    if (profile != null) {
+      synchronized (profile) {
+        profile.total = System.nanoTime() - profile.start;
+        profile.ended = true;
+      }
+    }
+    return profile;
+  }
+
+  /**
+   * Gets the profile of the current thread.
+   *
+   * @return profile or <code>null</code>, if none was begun.
+   */
+  public static SchemaProfile current() {
+    return current.get();
+  }
+
+  /**
+   * Binds <code>profile</code> to the current thread, such that metrics recorded by it are added
+   * to <code>profile</code>. Times recorded after <code>profile</code> has been ended are added to
+   * its total time. <code>profile</code> may be bound to several threads at once.
+   *
+   * @param profile to be bound. If <code>null</code>, the current thread has no profile then.
+   * @return profile which was bound to the current thread before.
+   */
+  public static SchemaProfile attach(SchemaProfile profile) {
+    SchemaProfile previous = current.get();
+    current.set(profile);
+    return previous;
+  }
+
+  /**
+   * Records <code>value</code> under <code>name</code> in the profile of the current thread, if
+   * there is one. Values recorded more than once under the same <code>name</code> are summed up.
+   *
+   * @param name of value.
+   * @param value to be added.
+   */
+  public static void record(String name, long value) {
+    SchemaProfile profile = current.get();
+
+    if (profile != null) {
+      synchronized (profile) {
+        profile.values.merge(name, value, Long::sum);
+      }
+    }
+  }
+
+  /**
+   * Marks the profile of the current thread as failed, if there is one.
+   *
+   * @param throwable which caused the failure.
+   */
+  public static void fail(Throwable throwable) {
+    SchemaProfile profile = current.get();
+
+    if (profile != null) {
+      synchronized (profile) {
+        profile.status = throwable.getClass().getSimpleName();
+      }
+    }
+  }
+
+  static void recordTime(String phase, long nanos) {
+    SchemaProfile profile = current.get();
+
+    if (profile != null) {
+      synchronized (profile) {
+        profile.times.merge(phase, nanos, Long::sum);
+        profile.timeCounts.merge(phase, 1L, Long::sum);
+        if (profile.ended) {
+          profile.total += nanos;
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends this profile as row to <code>csv</code>. If <code>csv</code> does not exist yet, it is
+   * created with a header.
+   *
+   * @param csv file to write to.
+   * @throws IOException if it cannot be written to <code>csv</code>.
+   */
+  public void writeToCSV(File csv) throws IOException {
+    if (!csv.exists()) {
+      CSVUtil.writeToCSV(csv, HEAD);
+    }
+
+    String[] row = new String[HEAD.length];
+    row[0] = name;
+    row[1] = uri;
+    row[2] = status;
+    row[3] = millis(total);
+    for (int i = 0; i < PHASES.length; i++) {
+      row[4 + i] = millis(times.getOrDefault(PHASES[i], 0L));
+    }
+    row[10] = String.valueOf(values.getOrDefault("inputBytes", 0L));
+    row[11] = String.valueOf(values.getOrDefault("outputBytes", 0L));
+    row[12] = String.valueOf(timeCounts.getOrDefault(Metrics.RESOLVE_REF, 0L));
+    row[13] = String.valueOf(values.getOrDefault("loadedFiles", 0L));
+    row[14] = String.valueOf(values.getOrDefault("addedDefinitions", 0L));
+    row[15] = String.valueOf(values.getOrDefault("maxDepth", 0L));
+    row[16] = String.valueOf(values.getOrDefault("visitedNodes", 0L));
+    CSVUtil.writeToCSV(csv, row);
+  }
+
+  private static String millis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+  }
+}
@@ -1,12 +1,28 @@
 package util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FilterWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.everit.json.schema.Schema;
@@ -15,15 +31,17 @@ import org.everit.json.schema.loader.SchemaLoader;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.json.JSONTokener;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
 import dto.LoadSchemaDTO;
 import exception.DraftValidationException;
 import model.Draft;
 import model.normalization.Normalizer;
+import model.normalization.SchemaCache;
+import model.normalization.SchemaFile;
 
 /**
  * Offers utils for JSON Schemas.
@@ -31,6 +49,11 @@ import model.normalization.Normalizer;
  * @author Lukas Ellinger
  */
 public class SchemaUtil {
+  /**
+   * Suffix of files which are written gzip-compressed.
+   */
+  public static final String GZIP_SUFFIX = ".gz";
+  private static final Map<Integer, Schema> DRAFT_SCHEMAS = new ConcurrentHashMap<>();
 
   /**
    * Checks whether a object is valid to a schema. <code>org.json.</code> is used.
@@ -56,7 +79,7 @@ public class SchemaUtil {
    */
   public static boolean isValidToDraft(File file) {
     try {
-      JSONObject schema = new JSONObject(FileUtils.readFileToString(file, "UTF-8"));
+      JSONObject schema = new JSONObject(readFile(file));
       return isValidToDraft(schema);
     } catch (Exception e) {
       Log.severe(file, e);
@@ -87,15 +110,39 @@ public class SchemaUtil {
    */
   public static boolean isValidToDraft(JSONObject schema) throws IOException {
     int validationDraftNumber = getValidationDraftNumber(schema);
+    long start = Metrics.start();
 
-    try (InputStream draftStream = SchemaUtil.class.getClassLoader()
-        .getResourceAsStream("drafts/draft" + validationDraftNumber + ".json")) {
-      JSONObject draft = new JSONObject(IOUtils.toString(draftStream, "UTF-8"));
-      SchemaLoader.load(draft).validate(schema);
+    try {
+      getDraftSchema(validationDraftNumber).validate(schema);
       return true;
     } catch (ValidationException e) {
       return false;
+    } finally {
+      Metrics.stop(Metrics.DRAFT_VALIDATION, start);
+    }
+  }
+
+  /**
+   * Gets the compiled schema of draft0<code>i</code>. It is only loaded once and reused
+   * afterwards.
+   * 
+   * @param i draftNumber. 4, 6 and 7 are supported.
+   * @return compiled schema of draft0<code>i</code>.
+   * @throws IOException if draftfile cannot be loaded.
+   */
+  public static Schema getDraftSchema(int i) throws IOException {
+    Schema draftSchema = DRAFT_SCHEMAS.get(i);
+
+    if (draftSchema == null) {
+      try (InputStream draftStream =
+          SchemaUtil.class.getClassLoader().getResourceAsStream("drafts/draft" + i + ".json")) {
+        JSONObject draft = new JSONObject(IOUtils.toString(draftStream, "UTF-8"));
+        draftSchema = SchemaLoader.load(draft);
+        DRAFT_SCHEMAS.putIfAbsent(i, draftSchema);
+      }
     }
+
+    return draftSchema;
   }
 
   /**
@@ -107,7 +154,7 @@ public class SchemaUtil {
    * @throws IOException if file cannot be loaded or does not conatain valid JSON.
    */
   public static boolean isValidSchema(File file) throws IOException {
-    JSONObject fileObject = new JSONObject(FileUtils.readFileToString(file, "UTF-8"));
+    JSONObject fileObject = new JSONObject(readFile(file));
 
     try {
       SchemaLoader.load(fileObject);
@@ -155,6 +202,25 @@ public class SchemaUtil {
     }
   }
 
+  /**
+   * Gets its draft to be used. In contrast to {@link #getDraft(JsonObject)}, <code>object</code>
+   * is not traversed, as it is already known whether "$id" is used.
+   * 
+   * @param object to get draft from.
+   * @param usesDollarId <code>true</code>, if "$id" is used in <code>object</code> outside of
+   *        "enum".
+   * @return <code>Draft4</code>, if "id" should be used. <code>DraftHigher</code>, if "$id" should
+   *         be used.
+   */
+  public static Draft getDraft(JsonObject object, boolean usesDollarId) {
+    int draft = getSpecifiedDraftNumber(object);
+    if (draft == 0) {
+      draft = usesDollarId ? 6 : 4;
+    }
+
+    return draft == 4 ? Draft.Draft4 : Draft.DraftHigher;
+  }
+
   /**
    * Gets the specified draft of <code>object</code>. <code>org.json.JSONObject</code> is used.
    * 
@@ -181,6 +247,18 @@ public class SchemaUtil {
    *         "$id" then 6 is returned. As default 4 is returned.
    */
   public static int getValidationDraftNumber(JsonObject object) {
+    int draft = getSpecifiedDraftNumber(object);
+    return draft != 0 ? draft : getDraftOfIdKeyword(object);
+  }
+
+  /**
+   * Gets the draft validation number specified with "$schema" in <code>object</code>.
+   * 
+   * @param object to get the draft version number from.
+   * @return 7 for draft07, 6 for draft06 and 4 for draft04 or draft03. 0, if no or no supported
+   *         draft was specified.
+   */
+  private static int getSpecifiedDraftNumber(JsonObject object) {
     if (object.has("$schema")) {
       String draft = object.get("$schema").getAsString();
 
@@ -193,7 +271,7 @@ public class SchemaUtil {
       }
     }
 
-    return getDraftOfIdKeyword(object);
+    return 0;
   }
 
   private static int getDraftOfIdKeyword(JsonElement element) {
@@ -249,19 +327,19 @@ public class SchemaUtil {
    * @throws IOException if draftfile cannot be loaded.
    */
   public static void deleteInvalidSchemasForDraft(File dir, int i) throws IOException {
-    JSONObject draft = (JSONObject) new JSONTokener(
-        SchemaUtil.class.getClassLoader().getResourceAsStream("drafts/draft" + i + ".json"))
-            .nextValue();
-    for (File file : dir.listFiles()) {
-      JSONObject obj;
-      try {
-        obj = (JSONObject) new JSONTokener(FileUtils.readFileToString(file, "UTF-8")).nextValue();
-
-        if (!isValid(SchemaLoader.load(draft), obj)) {
+    Schema draft = getDraftSchema(i);
+    try (DirWalker files = new DirWalker(dir, false)) {
+      for (File file : files) {
+        JSONObject obj;
+        try {
+          obj = (JSONObject) new JSONTokener(readFile(file)).nextValue();
+
+          if (!isValid(draft, obj)) {
+            file.delete();
+          }
+        } catch (JSONException e) {
           file.delete();
         }
-      } catch (JSONException e) {
-        file.delete();
       }
     }
   }
@@ -292,38 +370,59 @@ public class SchemaUtil {
 
   /**
    * Removes all ids in subschemas of <code>object</code>. <code>com.google.gson.JsonObject</code>
-   * is used.
+   * is used. Subschemas are visited in preorder with an explicit stack, such that deeply nested
+   * schemas can be handled with the default stack size.
    * 
    * @param object in which the ids in subschemas should be removed.
    */
   public static void removeIds(JsonObject object) {
-    for (Entry<String, JsonElement> entry : object.entrySet()) {
-      if (!entry.getKey().equals("enum")) {
-        removeRecursiveIds(entry.getValue());
-      }
-    }
+    Deque<JsonElement> stack = new ArrayDeque<>();
+    pushChildren(object, stack);
+    removeIds(stack);
   }
 
-  private static void removeRecursiveIds(JsonElement element) {
-    if (element.isJsonObject()) {
-      removeRecursiveIds(element.getAsJsonObject());
-    } else if (element.isJsonArray()) {
-      removeRecursiveIds(element.getAsJsonArray());
+  /**
+   * Removes the id of <code>element</code> and all ids in its subschemas. See
+   * {@link #removeIds(JsonObject)}.
+   * 
+   * @param element in which all ids should be removed.
+   */
+  public static void removeAllIds(JsonElement element) {
+    Deque<JsonElement> stack = new ArrayDeque<>();
+    stack.push(element);
+    removeIds(stack);
+  }
+
+  private static void removeIds(Deque<JsonElement> stack) {
+    while (!stack.isEmpty()) {
+      JsonElement element = stack.pop();
+
+      if (element.isJsonObject()) {
+        removeIdInElement(element);
+        pushChildren(element.getAsJsonObject(), stack);
+      } else if (element.isJsonArray()) {
+        JsonArray array = element.getAsJsonArray();
+        for (int i = array.size() - 1; i >= 0; i--) {
+          stack.push(array.get(i));
+        }
+      }
     }
   }
 
-  private static void removeRecursiveIds(JsonObject object) {
-    removeIdInElement(object);
+  /**
+   * Pushes all children of <code>object</code> except of "enum" on <code>stack</code>, such that
+   * the first child is on top.
+   */
+  private static void pushChildren(JsonObject object, Deque<JsonElement> stack) {
+    Deque<JsonElement> children = new ArrayDeque<>();
     for (Entry<String, JsonElement> entry : object.entrySet()) {
       if (!entry.getKey().equals("enum")) {
-        removeRecursiveIds(entry.getValue());
+        children.push(entry.getValue());
       }
     }
-  }
 
-  private static void removeRecursiveIds(JsonArray array) {
-    for (JsonElement element : array) {
-      removeRecursiveIds(element);
+    while (!children.isEmpty()) {
+      stack.push(children.pop());
     }
   }
 
@@ -337,44 +436,239 @@ public class SchemaUtil {
    * @throws IOException
    */
   public static void deleteSchemasNotUsingDraft(File dir, String draft) throws IOException {
-    for (File file : dir.listFiles()) {
-      JSONObject obj;
-      try {
-        obj = (JSONObject) new JSONTokener(FileUtils.readFileToString(file, "UTF-8")).nextValue();
+    try (DirWalker files = new DirWalker(dir, false)) {
+      for (File file : files) {
+        JSONObject obj;
+        try {
+          obj = (JSONObject) new JSONTokener(readFile(file)).nextValue();
 
-        if (getDraftString(obj).contains(draft)) {
+          if (getDraftString(obj).contains(draft)) {
+            file.delete();
+          }
+        } catch (JSONException e) {
           file.delete();
         }
-      } catch (JSONException e) {
-        file.delete();
       }
     }
   }
 
   /**
-   * Stores <code>element</code> in <code>file</code>.
+   * Stores <code>element</code> pretty printed in <code>file</code>. See
+   * {@link #writeJsonToFile(JsonElement, File, boolean)}.
    * 
    * @param element to be stored.
    * @param file to store <code>element</code> in.
    * @throws IOException
    */
   public static void writeJsonToFile(JsonElement element, File file) throws IOException {
-    Gson gson = new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create();
-    FileUtils.writeStringToFile(file, fixEncoding(gson.toJson(element)), "UTF-8");
+    writeJsonToFile(element, file, false);
+  }
+
+  /**
+   * Stores <code>element</code> in <code>file</code>. <code>element</code> is streamed to the
+   * file, such that no copy of the output is held in memory. An explicit stack is used instead of
+   * recursion, such that deeply nested elements can be written with the default stack size. Null
+   * members of objects are left out and HTML characters are not escaped, like Gson does.
+   * 
+   * @param element to be stored.
+   * @param file to store <code>element</code> in. Missing parent directories are created. If its
+   *        name ends with {@link #GZIP_SUFFIX}, it is written gzip-compressed.
+   * @param compact <code>true</code>, if no whitespace should be written. <code>false</code>, if
+   *        <code>element</code> should be pretty printed.
+   * @throws IOException
+   */
+  public static void writeJsonToFile(JsonElement element, File file, boolean compact)
+      throws IOException {
+    long start = Metrics.start();
+    FileUtils.forceMkdirParent(file);
+
+    Writer out;
+    if (file.getName().endsWith(GZIP_SUFFIX)) {
+      out = new BufferedWriter(new OutputStreamWriter(
+          new GZIPOutputStream(Files.newOutputStream(file.toPath()), 8192),
+          StandardCharsets.UTF_8));
+    } else {
+      out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    }
+
+    try (JsonWriter writer = new JsonWriter(new EscapingWriter(out))) {
+      writer.setLenient(true);
+      writer.setHtmlSafe(false);
+      writer.setSerializeNulls(false);
+      if (!compact) {
+        writer.setIndent("  ");
+      }
+      writeJson(element, writer);
+    }
+    Metrics.stop(Metrics.WRITE, start);
+  }
+
+  private static void writeJson(JsonElement element, JsonWriter writer) throws IOException {
+    Deque<Iterator<?>> stack = new ArrayDeque<>();
+    writeValue(element, writer, stack);
+
+    while (!stack.isEmpty()) {
+      Iterator<?> children = stack.peek();
+
+      if (!children.hasNext()) {
+        stack.pop();
+        if (children instanceof ObjectIterator) {
+          writer.endObject();
+        } else {
+          writer.endArray();
+        }
+      } else if (children instanceof ObjectIterator) {
+        Entry<String, JsonElement> entry = ((ObjectIterator) children).next();
+        writer.name(entry.getKey());
+        writeValue(entry.getValue(), writer, stack);
+      } else {
+        writeValue((JsonElement) children.next(), writer, stack);
+      }
+    }
+  }
+
+  /**
+   * Writes <code>element</code>, if it is no object or array. Otherwise it is begun and the
+   * iterator over its children is pushed on <code>stack</code>.
+   */
+  private static void writeValue(JsonElement element, JsonWriter writer,
+      Deque<Iterator<?>> stack) throws IOException {
+    if (element == null || element.isJsonNull()) {
+      writer.nullValue();
+    } else if (element.isJsonPrimitive()) {
+      JsonPrimitive primitive = element.getAsJsonPrimitive();
+      if (primitive.isNumber()) {
+        writer.value(primitive.getAsNumber());
+      } else if (primitive.isBoolean()) {
+        writer.value(primitive.getAsBoolean());
+      } else {
+        writer.value(primitive.getAsString());
+      }
+    } else if (element.isJsonArray()) {
+      writer.beginArray();
+      stack.push(element.getAsJsonArray().iterator());
+    } else {
+      writer.beginObject();
+      stack.push(new ObjectIterator(element.getAsJsonObject()));
+    }
+  }
+
+  /**
+   * Iterator over the members of an object.
+   */
+  private static class ObjectIterator implements Iterator<Entry<String, JsonElement>> {
+    private final Iterator<Entry<String, JsonElement>> entries;
+
+    ObjectIterator(JsonObject object) {
+      entries = object.entrySet().iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return entries.hasNext();
+    }
+
+    @Override
+    public Entry<String, JsonElement> next() {
+      return entries.next();
+    }
   }
 
-  private static String fixEncoding(String json) {
-    StringBuilder sb = new StringBuilder();
+  /**
+   * Escapes characters which are not displayed correctly by some tools reading the written files.
+   */
+  private static class EscapingWriter extends FilterWriter {
+    private static final String ESCAPED = "\u00a9\u2018\u2019\u201c\u201d";
+
+    EscapingWriter(Writer out) {
+      super(out);
+    }
 
-    for (char c : json.toCharArray()) {
-      if ("\u00a9\u2018\u2019\u201c\u201d".indexOf(c) >= 0) {
-        sb.append("\\u").append(Integer.toHexString(0x10000 | c).substring(1));
+    @Override
+    public void write(int c) throws IOException {
+      if (ESCAPED.indexOf(c) >= 0) {
+        out.write("\\u");
+        out.write(Integer.toHexString(0x10000 | c).substring(1));
       } else {
-        sb.append(c);
+        out.write(c);
       }
     }
 
-    return sb.toString();
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+      int written = off;
+      for (int i = off; i < off + len; i++) {
+        if (ESCAPED.indexOf(cbuf[i]) >= 0) {
+          out.write(cbuf, written, i - written);
+          write(cbuf[i]);
+          written = i + 1;
+        }
+      }
+      out.write(cbuf, written, off + len - written);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+      int written = off;
+      for (int i = off; i < off + len; i++) {
+        if (ESCAPED.indexOf(str.charAt(i)) >= 0) {
+          out.write(str, written, i - written);
+          write(str.charAt(i));
+          written = i + 1;
+        }
+      }
+      out.write(str, written, off + len - written);
+    }
+  }
+
+  /**
+   * Reads the content of <code>file</code>. If it is gzip-compressed, it is decompressed, such
+   * that compressed and uncompressed files can be read the same way.
+   * 
+   * @param file to be read. Has to be encoded in UTF-8.
+   * @return content of <code>file</code>.
+   * @throws IOException if <code>file</code> cannot be read.
+   */
+  public static String readFile(File file) throws IOException {
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+      in.mark(2);
+      int magic = in.read() | (in.read() << 8);
+      in.reset();
+
+      if (magic == GZIPInputStream.GZIP_MAGIC) {
+        return IOUtils.toString(new GZIPInputStream(in), StandardCharsets.UTF_8);
+      } else {
+        return IOUtils.toString(in, StandardCharsets.UTF_8);
+      }
+    }
+  }
+
+  /**
+   * Removes {@link #GZIP_SUFFIX} from <code>fileName</code>, if it ends with it.
+   * 
+   * @param fileName of a possibly compressed file.
+   * @return <code>fileName</code> without {@link #GZIP_SUFFIX}.
+   */
+  public static String removeGzipSuffix(String fileName) {
+    if (fileName.endsWith(GZIP_SUFFIX)) {
+      return fileName.substring(0, fileName.length() - GZIP_SUFFIX.length());
+    }
+    return fileName;
+  }
+
+  /**
+   * Gets the normalized schema of <code>unnormalizedFileName</code> in <code>normalizedDir</code>.
+   * If it has only been written compressed, the compressed file is returned.
+   * 
+   * @param normalizedDir directory of normalized schemas.
+   * @param unnormalizedFileName to get normalized schema of.
+   * @return normalized schema. May not exist.
+   */
+  public static File getNormalizedFile(File normalizedDir, String unnormalizedFileName) {
+    File normalized = new File(normalizedDir, getNormalizedFileName(unnormalizedFileName));
+    File compressed = new File(normalizedDir, normalized.getName() + GZIP_SUFFIX);
+
+    return !normalized.exists() && compressed.exists() ? compressed : normalized;
   }
 
   /**
@@ -392,29 +686,114 @@ public class SchemaUtil {
    */
   public static JsonObject normalize(File unnormalized, URI uri, File store, File csvLineage,
       LoadSchemaDTO config) throws IOException {
-    Normalizer normalizer;
-    if (uri != null) {
-      normalizer = new Normalizer(unnormalized, uri, config);
-    } else {
-      uri = unnormalized.toURI();
-      normalizer = new Normalizer(unnormalized, config);
-    }
+    return normalize(unnormalized, uri, store, csvLineage, config, null);
+  }
+
+  /**
+   * Normalizes the schema in <code>unnormalized</code> and stores it under the directory
+   * <code>store</code>. Its inputs are recorded in <code>manifest</code>.
+   * 
+   * @param unnormalized file of schema to be normalized.
+   * @param uri base uri of schema. If <code>null</code>, <code>URI</code> of
+   *        <code>unnormalized</code> is used.
+   * @param store to store normalized schema.
+   * @param csvLineage csv-file of where to store lineage of normalized schema.
+   * @param config of how schema should be loaded.
+   * @param manifest to record inputs of normalized schema in. If <code>null</code>, nothing is
+   *        recorded.
+   * @return normalized schema.
+   * @throws IOException
+   */
+  public static JsonObject normalize(File unnormalized, URI uri, File store, File csvLineage,
+      LoadSchemaDTO config, Manifest manifest) throws IOException {
+    return normalize(unnormalized, uri, store, csvLineage, config, manifest, null, null)
+        .getObject();
+  }
 
-    File normalizedFile = new File(store, getNormalizedFileName(unnormalized.getName()));
-    JsonObject normalizedSchema = normalizer.normalize();
+  /**
+   * Normalizes the schema in <code>unnormalized</code> like
+   * {@link #normalize(File, URI, File, File, LoadSchemaDTO, Manifest)}. If <code>writer</code> is
+   * given, the normalized schema is written by it, such that the caller can go on with the
+   * returned schema meanwhile. The returned schema must not be altered then. Its inputs are
+   * recorded in <code>manifest</code> before it is written, its lineage only after it has been
+   * written. If writing fails, the partially written schema is deleted and the task throws an
+   * <code>UncheckedIOException</code> or the <code>RuntimeException</code> which occurred, such
+   * that <code>writer</code> can hand it back to the caller, which then has to remove the entry
+   * from <code>manifest</code>.
+   * 
+   * @param cache to take loaded schemas from and to keep them in. May be <code>null</code>.
+   * @param writer to write the normalized schema with. If <code>null</code>, it is written before
+   *        returning.
+   * @return root schema, whose object is the normalized schema. Its row count is still the one
+   *         of <code>unnormalized</code>.
+   * @throws IOException
+   */
+  public static SchemaFile normalize(File unnormalized, URI uri, File store, File csvLineage,
+      LoadSchemaDTO config, Manifest manifest, SchemaCache cache, Executor writer)
+      throws IOException {
+    try {
+      Metrics.record("inputBytes", unnormalized.length());
+      Normalizer normalizer;
+      if (uri != null) {
+        normalizer = new Normalizer(unnormalized, uri, config, cache);
+      } else {
+        uri = unnormalized.toURI();
+        normalizer = new Normalizer(unnormalized, config, cache);
+      }
 
-    if (isValidToDraft(normalizedSchema)) {
-      Set<String> loadedFiles = normalizer.getRootSchema().getLoadedFiles();
-      String[] csvEntry = {normalizedFile.getName(), uri.toString(), loadedFiles.toString()};
-      CSVUtil.writeToCSV(csvLineage, csvEntry);
-      writeJsonToFile(normalizedSchema, normalizedFile);
-      return normalizedSchema;
-    } else {
-      throw new DraftValidationException(
-          "Normalized schema of " + unnormalized.getName() + " is not valid to draft");
+      String normalizedFileName = getNormalizedFileName(unnormalized.getName());
+      File normalizedFile = new File(store,
+          config.isGzipOutput() ? normalizedFileName + GZIP_SUFFIX : normalizedFileName);
+      JsonObject normalizedSchema = normalizer.normalize();
+
+      if (isValidToDraft(normalizedSchema)) {
+        Set<String> loadedFiles = normalizer.getRootSchema().getLoadedFiles();
+        String[] csvEntry = {normalizedFile.getName(), uri.toString(), loadedFiles.toString()};
+        // output of a previous run with other compression is stale
+        File stale = new File(store,
+            config.isGzipOutput() ? normalizedFileName : normalizedFileName + GZIP_SUFFIX);
+        if (writer == null) {
+          writeNormalized(normalizedSchema, normalizedFile, stale, config);
+          CSVUtil.writeToCSV(csvLineage, csvEntry);
+        } else {
+          writer.execute(() -> {
+            try {
+              writeNormalized(normalizedSchema, normalizedFile, stale, config);
+              // tasks may be run by several threads at once
+              synchronized (csvLineage) {
+                CSVUtil.writeToCSV(csvLineage, csvEntry);
+              }
+            } catch (IOException e) {
+              normalizedFile.delete();
+              throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+              normalizedFile.delete();
+              throw e;
+            }
+          });
+        }
+
+        if (manifest != null) {
+          manifest.record(unnormalized, uri, normalizedFile.getName(), loadedFiles);
+        }
+        return normalizer.getRootSchema();
+      } else {
+        throw new DraftValidationException(
+            "Normalized schema of " + unnormalized.getName() + " is not valid to draft");
+      }
+    } catch (RuntimeException | IOException e) {
+      SchemaProfile.fail(e);
+      throw e;
     }
   }
 
+  private static void writeNormalized(JsonObject normalizedSchema, File normalizedFile,
+      File stale, LoadSchemaDTO config) throws IOException {
+    writeJsonToFile(normalizedSchema, normalizedFile, config.isCompactOutput());
+    stale.delete();
+    Metrics.record("outputBytes", normalizedFile.length());
+  }
+
   /**
    * Gets the filename of the normalized schema.
    * 
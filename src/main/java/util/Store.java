@@ -3,12 +3,14 @@ package util;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.apache.commons.csv.CSVRecord;
-import org.apache.commons.io.FileUtils;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import exception.StoreException;
@@ -23,6 +25,10 @@ public class Store {
   private static int counter = 0;
   private static File dir = new File("Store");
   private static File csv = new File("UriOfFiles.csv");
+  private static Map<String, String> index = new HashMap<>();
+  private static String indexStamp = "";
+  private static Cache<String, JsonObject> schemas =
+      CacheBuilder.newBuilder().maximumSize(512).build();
 
   static {
     try {
@@ -48,15 +54,19 @@ public class Store {
    * 
    * @param object to be stored.
    * @param uri to associate <code>object</code> with.
+   * @param refSites all objects within <code>object</code> which have a primitive "$ref".
+   * @param gzip <code>true</code>, if <code>object</code> should be stored gzip-compressed.
    * @throws IOException if it cannot be stored or if entry to <code>csv</code> cannot be made.
    */
-  public static void storeSchema(JsonObject object, URI uri) throws IOException {
+  public static synchronized void storeSchema(JsonObject object, URI uri,
+      Collection<JsonObject> refSites, boolean gzip) throws IOException {
     if (!dir.exists()) {
       dir.mkdir();
     }
 
-    File file = new File(dir, "js_" + counter + ".json");
-    SchemaUtil.writeJsonToFile(convertRefPaths(object), file);
+    File file =
+        new File(dir, "js_" + counter + ".json" + (gzip ? SchemaUtil.GZIP_SUFFIX : ""));
+    SchemaUtil.writeJsonToFile(convertRefPaths(object, refSites), file);
     String[] line = {file.getName(), uri.toString()};
     CSVUtil.writeToCSV(csv, line);
     counter++;
@@ -64,12 +74,13 @@ public class Store {
 
   /**
    * For each keyword in definitions object kills slashes and dots and replaces the substring "definitions.
-   * Adjusts $ref value.
+   * Adjusts $ref value. <code>object</code> is converted in place.
    *
    * @param object The JSON object to convert its references.
-   * @return A JSON object with converted references.
+   * @param refSites all objects within <code>object</code> which have a primitive "$ref".
+   * @return <code>object</code> with converted references.
    */
-  private static JsonObject convertRefPaths(JsonObject object) {
+  private static JsonObject convertRefPaths(JsonObject object, Collection<JsonObject> refSites) {
     if (object.has("definitions")) {
       JsonObject defs = object.get("definitions").getAsJsonObject();
       JsonObject newDefs = new JsonObject();
@@ -80,63 +91,60 @@ public class Store {
       }
 
       object.add("definitions", newDefs);
-      return findAndReplaceRefPathsInElement(object).getAsJsonObject();
-    }
 
-    return object;
-  }
+      for (JsonObject site : refSites) {
+        String value = site.get("$ref").getAsString();
 
-  private static JsonElement findAndReplaceRefPathsInElement(JsonElement json) {
-    if (json.isJsonArray()) {
-      JsonArray array = new JsonArray();
+        if (value.startsWith("#/definitions/")) {
+          String suffix = value.substring("#/definitions/".length());
+          suffix = suffix.replace(".", "_").replace("definitions", "defs");
+          value = "#/definitions/" + suffix;
+        }
 
-      for (JsonElement elem : json.getAsJsonArray()) {
-        array.add(findAndReplaceRefPathsInElement(elem));
+        site.addProperty("$ref", value);
       }
-
-      return array;
     }
 
-    if (json.isJsonObject()) {
-      JsonObject object = new JsonObject();
-      JsonObject obj = json.getAsJsonObject();
-
-      for (String key : obj.keySet()) {
-        if (key.equals("$ref")) {
-          String value;
-          try {
-            value = obj.get(key).getAsString();
-
-            if (value.startsWith("#/definitions/")) {
-              String suffix = value.substring("#/definitions/".length());
-              suffix = suffix.replace(".", "_").replace("definitions", "defs");
-              value = "#/definitions/" + suffix;
-            }
-
-            object.addProperty(key, value);
-          } catch (UnsupportedOperationException e) {
-            object.add(key, findAndReplaceRefPathsInElement(obj.get(key)));
-          }
-        } else {
-          object.add(key, findAndReplaceRefPathsInElement(obj.get(key)));
-        }
-      }
+    return object;
+  }
 
-      return object;
+  /**
+   * Gets the schema associated with <code>uri</code>. Loaded schemas are cached, such that each
+   * call only returns a copy of the cached schema. Compressed schemas are decompressed.
+   * 
+   * @param uri of which the stored schema should be returned.
+   * @return stored schema of <code>uri</code>.
+   * @throws StoreException if no file is associated with <code>uri</code> or if
+   *         <code>csv</code> does not exist.
+   * @throws IOException if stored schema cannot be read.
+   */
+  public static synchronized JsonObject getSchema(URI uri) throws StoreException, IOException {
+    File file = getFile(uri);
+    JsonObject schema = schemas.getIfPresent(uri.toString());
+
+    if (schema == null) {
+      schema = new Gson().fromJson(SchemaUtil.readFile(file), JsonObject.class);
+      schemas.put(uri.toString(), schema);
     }
 
-    return json;
+    return schema.deepCopy();
   }
 
-  public static JsonObject getSchema(URI uri) throws StoreException, IOException {
+  /**
+   * Gets the file in which the schema associated with <code>uri</code> is stored.
+   * 
+   * @param uri of which the stored file should be returned.
+   * @return file in which the schema of <code>uri</code> is stored.
+   * @throws StoreException if no file is associated with <code>uri</code> or if
+   *         <code>csv</code> does not exist.
+   * @throws IOException if <code>csv</code> cannot be read.
+   */
+  public static synchronized File getFile(URI uri) throws StoreException, IOException {
     if (csv.exists()) {
-      List<CSVRecord> records = CSVUtil.loadCSV(csv, ',', false);
+      String name = getIndex().get(uri.toString());
 
-      for (CSVRecord record : records) {
-        if (record.get(1).equals(uri.toString())) {
-          File file = new File(dir, record.get(0));
-          return new Gson().fromJson(FileUtils.readFileToString(file, "UTF-8"), JsonObject.class);
-        }
+      if (name != null) {
+        return new File(dir, name);
       }
 
       throw new StoreException("No file associated with " + uri + " found in store");
@@ -144,4 +152,29 @@ public class Store {
       throw new StoreException(csv.getName() + " does not exist");
     }
   }
+
+  /**
+   * Gets the index of all stored <code>URIs</code> with their associated file names. It is only
+   * loaded again from <code>csv</code> if <code>csv</code> has changed since.
+   * 
+   * @return index of all stored <code>URIs</code> with their associated file names.
+   * @throws IOException if <code>csv</code> cannot be read.
+   */
+  private static Map<String, String> getIndex() throws IOException {
+    String stamp = csv.lastModified() + ":" + csv.length();
+
+    if (!stamp.equals(indexStamp)) {
+      Map<String, String> newIndex = new HashMap<>();
+
+      for (CSVRecord record : CSVUtil.loadCSV(csv, ',', false)) {
+        newIndex.putIfAbsent(record.get(1), record.get(0));
+      }
+
+      index = newIndex;
+      indexStamp = stamp;
+      schemas.invalidateAll();
+    }
+
+    return index;
+  }
 }
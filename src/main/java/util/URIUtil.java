@@ -3,8 +3,9 @@ package util;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import com.google.common.net.PercentEscaper;
-import exception.InvalidIdentifierException;
 
 /**
  * Offers methods to alter URIs.
@@ -12,6 +13,11 @@ import exception.InvalidIdentifierException;
  * @author Lukas Ellinger
  */
 public class URIUtil {
+  private static final PercentEscaper ESCAPER =
+      new PercentEscaper(":/?#[]@!$&'()*+,;=-._~%", false);
+  private static final int MAX_PARSED = 1 << 14;
+  // references and ids are parsed again for every occurrence
+  private static final Map<String, URI> PARSED = new ConcurrentHashMap<>();
 
   /**
    * If <code>uri</code> ends with # then # is removed.
@@ -20,16 +26,7 @@ public class URIUtil {
    * @return <code>uri</code> with removed ending #.
    */
   public static URI removeTrailingHash(URI uri) {
-    if (uri.toString().endsWith("#")) {
-      String uriString = uri.toString();
-      try {
-        return new URI(uriString.substring(0, uriString.length() - 1));
-      } catch (URISyntaxException e) {
-        throw new IllegalArgumentException(uri.toString() + " is no valid uri");
-      }
-    } else {
-      return uri;
-    }
+    return CanonicalURI.of(uri).withoutTrailingHash().toURI();
   }
 
   /**
@@ -39,11 +36,7 @@ public class URIUtil {
    * @return <code>uri</code> with removed fragment.
    */
   public static URI removeFragment(URI uri) {
-    try {
-      return new URI(uri.getScheme(), uri.getAuthority(), uri.getPath(), uri.getQuery(), null);
-    } catch (URISyntaxException e) {
-      throw new InvalidIdentifierException(uri.toString() + " without fragment is no valid uri");
-    }
+    return CanonicalURI.of(uri).withoutFragment().toURI();
   }
 
   /**
@@ -66,8 +59,15 @@ public class URIUtil {
    * @throws URISyntaxException if no valid URI can be created out of <code>uri</code>.
    */
   public static URI toURI(String uri) throws URISyntaxException {
-    PercentEscaper escaper = new PercentEscaper(":/?#[]@!$&'()*+,;=-._~%", false);
-    return new URI(escaper.escape(uri));
+    URI parsed = PARSED.get(uri);
+    if (parsed == null) {
+      parsed = new URI(ESCAPER.escape(uri));
+      if (PARSED.size() >= MAX_PARSED) {
+        PARSED.clear();
+      }
+      PARSED.put(uri, parsed);
+    }
+    return parsed;
   }
 
   /**
@@ -78,19 +78,6 @@ public class URIUtil {
    * @return <code>URI</code> with parent path.
    */
   public static URI getParentURI(URI uri) {
-    try {
-      return new URI(uri.getScheme(), uri.getAuthority(), getParent(uri.getPath()), uri.getQuery(),
-          uri.getFragment());
-    } catch (URISyntaxException e) {
-      throw new InvalidIdentifierException("Parent URI of " + uri + " is no valid URI");
-    }
-  }
-
-  private static String getParent(String resourcePath) {
-    int index = resourcePath.lastIndexOf('/');
-    if (index > 0) {
-      return resourcePath.substring(0, index);
-    }
-    return "/";
+    return CanonicalURI.of(uri).parent().toURI();
   }
 }
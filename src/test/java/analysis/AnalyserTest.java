@@ -0,0 +1,51 @@
+package analysis;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AnalyserTest {
+
+  private final static File BASIC_SCHEMAS = new File("src/test/resources/basicSchemas");
+  private final static File ANALYSIS_FILE = new File("recursionanalysis_Normalized_basic.csv");
+  private final static File WITNESS_FILE = new File("witnesses_Normalized_basic.csv");
+
+  @TempDir
+  File tempDir;
+
+  @AfterEach
+  void deleteCSVs() {
+    ANALYSIS_FILE.delete();
+    WITNESS_FILE.delete();
+  }
+
+  @Test
+  void threadsTest() throws IOException {
+    File normalizedDir = new File(tempDir, "Normalized_basic");
+    for (File schema : BASIC_SCHEMAS.listFiles()) {
+      if (schema.getName().startsWith("Normalized_")) {
+        FileUtils.copyFileToDirectory(schema, normalizedDir);
+      }
+    }
+
+    analyse(normalizedDir, 1);
+    byte[] analysis = Files.readAllBytes(ANALYSIS_FILE.toPath());
+    byte[] witnesses = Files.readAllBytes(WITNESS_FILE.toPath());
+    analyse(normalizedDir, 4);
+
+    assertArrayEquals(analysis, Files.readAllBytes(ANALYSIS_FILE.toPath()));
+    assertArrayEquals(witnesses, Files.readAllBytes(WITNESS_FILE.toPath()));
+  }
+
+  private void analyse(File normalizedDir, int threads) throws IOException {
+    // csv files are appended to and the analysis file is expected to exist
+    deleteCSVs();
+    ANALYSIS_FILE.createNewFile();
+    new Analyser(null, threads).analyseRecursion(normalizedDir, false, true);
+  }
+}
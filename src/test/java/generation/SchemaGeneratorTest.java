@@ -0,0 +1,70 @@
+package generation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import model.normalization.Normalizer;
+import model.normalization.RepositoryType;
+import model.recursion.RecursionChecker;
+import model.recursion.RecursionType;
+import util.SchemaUtil;
+
+class SchemaGeneratorTest {
+
+  private final static LoadSchemaDTO config = new LoadSchemaDTO.Builder()
+      .allowDistributedSchemas(true)
+      .fetchSchemasOnline(false)
+      .setRepType(RepositoryType.NORMAL)
+      .build();
+
+  @TempDir
+  File dir;
+
+  @ParameterizedTest
+  @CsvSource({"WIDE, 20, NONE", "DEEP, 20, NONE", "REF_CHAIN, 20, NONE", "ID_SCOPED, 20, NONE",
+      "DISTRIBUTED, 20, NONE", "RECURSIVE, 8, GUARDED"})
+  void generatedSchemaNormalizationTest(SchemaFamily family, int size, RecursionType type)
+      throws IOException {
+    File root = SchemaGenerator.write(family, size, dir);
+    Normalizer normalizer = new Normalizer(root, config);
+    JsonObject normalized = normalizer.normalize();
+
+    assertTrue(SchemaUtil.isValidToDraft(normalized));
+    assertEquals(type, new RecursionChecker(normalized).checkForRecursion());
+  }
+
+  @ParameterizedTest
+  @CsvSource({"DISTRIBUTED, 21", "WIDE, 1"})
+  void generatedSchemaLoadedFilesTest(SchemaFamily family, int loadedFiles) throws IOException {
+    File root = SchemaGenerator.write(family, 20, dir);
+    Normalizer normalizer = new Normalizer(root, config);
+    normalizer.normalize();
+
+    assertEquals(loadedFiles, normalizer.getRootSchema().getLoadedFiles().size());
+  }
+
+  @Test
+  void deepSchemaWithSmallStackTest() throws Exception {
+    File root = SchemaGenerator.write(SchemaFamily.DEEP, 300, dir);
+    Throwable[] failure = new Throwable[1];
+    Thread thread = new Thread(null, () -> {
+      try {
+        new Normalizer(root, config).normalize();
+      } catch (Throwable e) {
+        failure[0] = e;
+      }
+    }, "small-stack", 256 * 1024);
+    thread.start();
+    thread.join();
+
+    assertNull(failure[0]);
+  }
+}
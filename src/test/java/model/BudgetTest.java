@@ -0,0 +1,55 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.File;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import dto.LoadSchemaDTO;
+import exception.BudgetExceededException;
+import generation.SchemaFamily;
+import generation.SchemaGenerator;
+import model.normalization.Normalizer;
+import model.normalization.RepositoryType;
+
+class BudgetTest {
+
+  @TempDir
+  File dir;
+
+  private static LoadSchemaDTO.Builder config() {
+    return new LoadSchemaDTO.Builder()
+        .allowDistributedSchemas(true)
+        .fetchSchemasOnline(false)
+        .setRepType(RepositoryType.NORMAL);
+  }
+
+  @Test
+  void maxDepthTest() throws IOException {
+    File root = SchemaGenerator.write(SchemaFamily.DEEP, 50, dir);
+
+    assertThrows(BudgetExceededException.class,
+        () -> new Normalizer(root, config().setMaxDepth(20).build()).normalize());
+    assertDoesNotThrow(
+        () -> new Normalizer(root, config().setMaxDepth(200).build()).normalize());
+  }
+
+  @Test
+  void maxLoadedFilesTest() throws IOException {
+    File root = SchemaGenerator.write(SchemaFamily.DISTRIBUTED, 20, dir);
+
+    assertThrows(BudgetExceededException.class,
+        () -> new Normalizer(root, config().setMaxLoadedFiles(5).build()).normalize());
+    assertDoesNotThrow(
+        () -> new Normalizer(root, config().setMaxLoadedFiles(21).build()).normalize());
+  }
+
+  @Test
+  void maxDefinitionsTest() throws IOException {
+    File root = SchemaGenerator.write(SchemaFamily.DISTRIBUTED, 20, dir);
+
+    assertThrows(BudgetExceededException.class,
+        () -> new Normalizer(root, config().setMaxDefinitions(5).build()).normalize());
+  }
+}
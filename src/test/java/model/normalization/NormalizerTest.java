@@ -4,10 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
 import org.apache.commons.io.FileUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import com.google.gson.JsonObject;
@@ -61,6 +63,34 @@ public class NormalizerTest {
         normalizer.normalize());
   }
 
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 9, 10, 11, 12})
+  void fileRefsSchemasCachedTest(int i) throws IOException {
+    File schema = new File(MessageFormat.format(FILE_REFS_SCHEMAS, i, ""));
+    SchemaCache cache = new SchemaCache(16);
+    new Normalizer(schema, config, cache).normalize();
+
+    assertEquals(FileLoader.getStoredNormalizedSchema(FILE_REFS_SCHEMAS, i),
+        new Normalizer(schema, config, cache).normalize());
+  }
+
+  @Test
+  void cachedFileModifiedTest(@TempDir File dir) throws IOException {
+    File schema = new File(dir, "a.json");
+    File referenced = new File(dir, "b.json");
+    FileUtils.writeStringToFile(schema, "{\"properties\": {\"b\": {\"$ref\": \"b.json\"}}}",
+        StandardCharsets.UTF_8);
+    FileUtils.writeStringToFile(referenced, "{\"type\": \"string\"}", StandardCharsets.UTF_8);
+    SchemaCache cache = new SchemaCache(16);
+    new Normalizer(schema, config, cache).normalize();
+
+    FileUtils.writeStringToFile(referenced, "{\"type\": \"integer\", \"minimum\": 1}",
+        StandardCharsets.UTF_8);
+
+    assertEquals(new Normalizer(schema, config).normalize(),
+        new Normalizer(schema, config, cache).normalize());
+  }
+
   @Test
   void schemaWithRefToOneDirectoryUpTest() throws IOException {
     String path = "src/test/resources/fileRefsSchemas/test13/";
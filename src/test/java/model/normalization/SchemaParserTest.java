@@ -0,0 +1,105 @@
+package model.normalization;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+class SchemaParserTest {
+
+  @Test
+  void convertDefinitionsTest() {
+    String json = "{\"definitions\": {\"a.b\": {\"$ref\": \"#/definitions/c.definitions\"},"
+        + "\"$ref\": \"#/definitions/a.b\"}, \"items\": [{\"$ref\": [\"#/definitions/a.b\"]}],"
+        + "\"minimum\": 1.50}";
+    String expected = "{\"definitions\": {\"a_b\": {\"$ref\": \"#/definitions/c_defs\"},"
+        + "\"$ref\": \"#/definitions/a.b\"}, \"items\": [{\"$ref\": \"#/definitions/a_b\"}],"
+        + "\"minimum\": 1.50}";
+    SchemaParser parser = new SchemaParser();
+
+    JsonObject parsed = parser.parse(json);
+
+    assertEquals(JsonParser.parseString(expected), parsed);
+    assertEquals("1.50", parsed.get("minimum").toString());
+    assertEquals(3, parser.getRefSites().size());
+  }
+
+  @Test
+  void idIndexTest() {
+    String json = "{\"properties\": {\"a\": {\"properties\": {\"b\": {\"$id\": \"b\"}},"
+        + "\"$id\": \"a\"}}, \"enum\": [{\"$id\": \"c\"}], \"not\": {\"id\": \"d\"}}";
+    SchemaParser parser = new SchemaParser();
+
+    JsonObject parsed = parser.parse(json);
+    List<IdIndex.Node> nodes = parser.getIdIndex().getNodes();
+
+    assertEquals(List.of("", "a", "b", "d"), nodes.stream().map(node -> ids(node.object))
+        .collect(Collectors.toList()));
+    assertTrue(nodes.get(1).contains(nodes.get(2)));
+    assertFalse(nodes.get(1).contains(nodes.get(3)));
+    assertEquals(List.of(1, 3, 5, 2), nodes.stream().map(node -> node.depth)
+        .collect(Collectors.toList()));
+    assertEquals(nodes.size(), IdIndex.of(parsed).getNodes().size());
+    assertTrue(parser.usesDollarId());
+  }
+
+  @Test
+  void dollarIdInEnumTest() {
+    SchemaParser parser = new SchemaParser();
+
+    parser.parse("{\"enum\": [{\"$id\": \"a\"}], \"id\": \"b\"}");
+
+    assertFalse(parser.usesDollarId());
+  }
+
+  @Test
+  void deeplyNestedTest() {
+    int depth = 100_000;
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < depth; i++) {
+      json.append("{\"not\": ");
+    }
+    json.append("{}");
+    for (int i = 0; i < depth; i++) {
+      json.append('}');
+    }
+
+    JsonObject parsed = new SchemaParser().parse(json.toString());
+
+    assertTrue(parsed.has("not"));
+  }
+
+  @Test
+  void rowsTest() {
+    String json = "{\"type\": \"object\", \"default\": null, \"properties\": {},"
+        + "\"enum\": [null, [], [1, {\"a\": null}], {\"b\": {\"c\": true}}]}";
+    SchemaParser parser = new SchemaParser();
+
+    parser.parse(json);
+    String printed = new GsonBuilder().setPrettyPrinting().create()
+        .toJson(JsonParser.parseString(json));
+
+    assertEquals(printed.split("\n").length, parser.getRows());
+  }
+
+  @Test
+  void noObjectTest() {
+    assertThrows(JsonSyntaxException.class, () -> new SchemaParser().parse("[]"));
+    assertThrows(JsonSyntaxException.class, () -> new SchemaParser().parse("{\"a\": "));
+    assertThrows(JsonSyntaxException.class, () -> new SchemaParser().parse(""));
+  }
+
+  private static String ids(JsonObject object) {
+    if (object.has("$id")) {
+      return object.get("$id").getAsString();
+    }
+    return object.has("id") ? object.get("id").getAsString() : "";
+  }
+}
@@ -0,0 +1,58 @@
+package model.recursion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.io.File;
+import java.io.IOException;
+import java.text.MessageFormat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import model.normalization.Normalizer;
+import model.normalization.RepositoryType;
+import util.FileLoader;
+
+class DistributedRecursionCheckerTest {
+
+  private final static String FILE_REFS_SCHEMAS =
+      "src/test/resources/fileRefsSchemas/testSchema{0}.json";
+  private final static String BASIC_SCHEMAS = "src/test/resources/basicSchemas/testSchema{0}.json";
+  private final static LoadSchemaDTO config = new LoadSchemaDTO.Builder()
+      .allowDistributedSchemas(true)
+      .fetchSchemasOnline(false)
+      .setRepType(RepositoryType.NORMAL)
+      .build();
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 9, 10, 11, 12})
+  void fileRefsSchemasTest(int i) throws IOException {
+    File file = new File(MessageFormat.format(FILE_REFS_SCHEMAS, i));
+    RecursionChecker normalized = new RecursionChecker(new Normalizer(file, config).normalize());
+
+    assertEquals(normalized.findCycles().toString(),
+        new DistributedRecursionChecker(file, config).findCycles().toString());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {2, 3, 4, 5, 6, 7, 8, 9, 10, 15, 16, 35, 43, 47, 49, 50, 51})
+  void basicSchemasTest(int i) throws IOException {
+    File file = new File(MessageFormat.format(BASIC_SCHEMAS, i));
+    RecursionChecker normalized = new RecursionChecker(new Normalizer(file, config).normalize());
+
+    assertEquals(normalized.checkForRecursion(),
+        new DistributedRecursionChecker(file, config).checkForRecursion());
+  }
+
+  @Test
+  void schemaNotAlteredTest() throws IOException {
+    File file = new File(MessageFormat.format(FILE_REFS_SCHEMAS, 9));
+    DistributedRecursionChecker checker = new DistributedRecursionChecker(file, config);
+
+    assertEquals(RecursionType.GUARDED, checker.checkForRecursion());
+    assertEquals(FileLoader.loadSchema(file.getPath()), checker.getRootSchema().getObject());
+    JsonObject root = checker.getRootSchema().getObject();
+    assertEquals("other3.json#/properties/B",
+        root.getAsJsonObject("properties").getAsJsonObject("A").get("$ref").getAsString());
+  }
+}
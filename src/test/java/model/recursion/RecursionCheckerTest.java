@@ -1,10 +1,12 @@
 package model.recursion;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import java.io.File;
 import java.io.IOException;
 import java.text.MessageFormat;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -57,4 +59,73 @@ class RecursionCheckerTest {
     RecursionChecker checker = new RecursionChecker(normalizer.normalize());
     assertEquals(RecursionType.GUARDED, checker.checkForRecursion());
   }
+
+  @Test
+  void findCyclesTest() {
+    RecursionChecker checker = new RecursionChecker("{\"definitions\": {"
+        + "\"a\": {\"allOf\": [{\"$ref\": \"#/definitions/b\"}]},"
+        + "\"b\": {\"properties\": {\"x\": {\"$ref\": \"#/definitions/a\"}}},"
+        + "\"c\": {\"anyOf\": [{\"$ref\": \"#/definitions/d\"}, {\"$ref\": \"#/definitions/a\"}]},"
+        + "\"d\": {\"not\": {\"$ref\": \"#/definitions/c\"}},"
+        + "\"e\": {\"$ref\": \"#/definitions/a\"}},"
+        + "\"items\": {\"$ref\": \"#/definitions/e\"}}");
+    List<Cycle> cycles = checker.findCycles();
+
+    assertEquals(2, cycles.size());
+    assertEquals(List.of("a", "b"), cycles.get(0).getComponent());
+    assertEquals("a -> b ~> a", cycles.get(0).toString());
+    assertEquals(RecursionType.GUARDED, cycles.get(0).getType());
+    assertEquals(List.of("c", "d"), cycles.get(1).getComponent());
+    assertEquals("c -> d -> c", cycles.get(1).toString());
+    assertEquals(RecursionType.RECURSION, cycles.get(1).getType());
+    assertFalse(cycles.get(1).isEdgeGuarded(1));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"{\"$ref\": \"#\"}", "{\"allOf\": [{\"$ref\": \"#\"}]}"})
+  void rootReferenceInDefinitionTest(String definition) {
+    RecursionChecker checker = new RecursionChecker(
+        "{\"definitions\": {\"a\": " + definition + "}, \"type\": \"object\"}");
+
+    assertEquals(RecursionType.GUARDED, checker.checkForRecursion());
+    assertEquals(List.of(), checker.findCycles());
+  }
+
+  @Test
+  void referencedElementsTest() {
+    RecursionChecker intoRoot = new RecursionChecker("{\"properties\": {"
+        + "\"a\": {\"$ref\": \"#/properties/b\"}, \"b\": {\"type\": \"string\"}}}");
+    RecursionChecker intoDefinition = new RecursionChecker("{\"definitions\": {\"A\": {"
+        + "\"properties\": {\"p\": {\"$ref\": \"#/definitions/A/properties/q\"},"
+        + "\"q\": {\"type\": \"string\"}}}}}");
+    RecursionChecker throughDefinition = new RecursionChecker("{\"definitions\": {\"A\": {"
+        + "\"properties\": {\"p\": {\"$ref\": \"#/definitions/A/properties/q\"},"
+        + "\"q\": {\"allOf\": [{\"$ref\": \"#/definitions/A\"}]}}}}}");
+
+    assertEquals(List.of(), intoRoot.findCycles());
+    assertEquals(RecursionType.NONE, intoRoot.checkForRecursion());
+    assertEquals(List.of(), intoDefinition.findCycles());
+    assertEquals(RecursionType.NONE, intoDefinition.checkForRecursion());
+    List<Cycle> cycles = throughDefinition.findCycles();
+    assertEquals(List.of("A", "#/definitions/A/properties/q"), cycles.get(0).getComponent());
+    assertEquals("A ~> A", cycles.get(0).toString());
+    assertEquals(RecursionType.GUARDED, throughDefinition.checkForRecursion());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {2, 3, 4, 5, 6, 7, 8, 9, 10, 15, 16, 35, 43, 47, 49, 50, 51})
+  void cyclesMatchRecursionTypeTest(int i) throws IOException {
+    Normalizer normalizer =
+        new Normalizer(new File(MessageFormat.format(BASIC_SCHEMAS, i, "")), config);
+    RecursionChecker checker = new RecursionChecker(normalizer.normalize());
+    List<Cycle> cycles = checker.findCycles();
+    RecursionType type = RecursionType.NONE;
+    for (Cycle cycle : cycles) {
+      if (type != RecursionType.RECURSION) {
+        type = cycle.getType();
+      }
+    }
+
+    assertEquals(checker.checkForRecursion(), type);
+  }
 }
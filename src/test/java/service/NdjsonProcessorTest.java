@@ -0,0 +1,60 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import model.normalization.RepositoryType;
+
+class NdjsonProcessorTest {
+
+  private final static String SCHEMA = "src/test/resources/basicSchemas/testSchema10.json";
+  private final static LoadSchemaDTO config = new LoadSchemaDTO.Builder()
+      .allowDistributedSchemas(true)
+      .fetchSchemasOnline(false)
+      .setRepType(RepositoryType.NORMAL)
+      .build();
+
+  @Test
+  void processTest() throws IOException, InterruptedException {
+    String schema = new Gson().fromJson(
+        FileUtils.readFileToString(new File(SCHEMA), StandardCharsets.UTF_8), JsonObject.class)
+        .toString();
+    String input = "{\"id\": 1, \"schema\": " + schema + "}\n"
+        + "{\"id\": 2, \"schema\": \n"
+        + "\n"
+        + "{\"id\": 3, \"schema\": {\"type\": \"string\"}}\n"
+        + "{\"id\": 4}\n";
+    StringWriter out = new StringWriter();
+
+    int failed = new NdjsonProcessor(new SchemaService(config), 2, 2)
+        .process(new BufferedReader(new StringReader(input)), out);
+    String[] lines = out.toString().split("\n");
+
+    assertEquals(2, failed);
+    assertEquals(4, lines.length);
+    JsonObject first = new Gson().fromJson(lines[0], JsonObject.class);
+    assertEquals(1, first.get("id").getAsInt());
+    assertEquals("RECURSION", first.get("recursion").getAsString());
+    assertTrue(first.has("normalized"));
+    JsonObject second = new Gson().fromJson(lines[1], JsonObject.class);
+    assertFalse(second.has("id"));
+    assertTrue(second.has("error"));
+    JsonObject third = new Gson().fromJson(lines[2], JsonObject.class);
+    assertEquals(3, third.get("id").getAsInt());
+    assertEquals("NONE", third.get("recursion").getAsString());
+    JsonObject fourth = new Gson().fromJson(lines[3], JsonObject.class);
+    assertEquals(4, fourth.get("id").getAsInt());
+    assertTrue(fourth.has("error"));
+  }
+}
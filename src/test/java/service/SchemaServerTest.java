@@ -0,0 +1,96 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import dto.LoadSchemaDTO;
+import model.normalization.RepositoryType;
+
+class SchemaServerTest {
+
+  private final static String SCHEMA = "src/test/resources/basicSchemas/testSchema10.json";
+  private final static LoadSchemaDTO config = new LoadSchemaDTO.Builder()
+      .allowDistributedSchemas(true)
+      .fetchSchemasOnline(false)
+      .setRepType(RepositoryType.NORMAL)
+      .build();
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private SchemaServer server;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = new SchemaServer(0, 2, 4, new SchemaService(config));
+    server.start();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop();
+  }
+
+  @Test
+  void normalizeAndRecursionTest() throws IOException, InterruptedException {
+    String schema = FileUtils.readFileToString(new File(SCHEMA), StandardCharsets.UTF_8);
+    HttpResponse<String> normalized = post("/normalize", schema);
+    JsonObject expected = new SchemaService(config)
+        .normalize(new Gson().fromJson(schema, JsonObject.class), null);
+
+    assertEquals(200, normalized.statusCode());
+    assertEquals(expected, toJson(normalized));
+
+    String normalizedSchema = toJson(normalized).getAsJsonObject("normalized").toString();
+    HttpResponse<String> recursion = post("/recursion?normalized=true", normalizedSchema);
+
+    assertEquals(200, recursion.statusCode());
+    assertEquals("RECURSION", toJson(recursion).get("recursion").getAsString());
+    assertEquals(toJson(recursion), toJson(post("/recursion", schema)));
+  }
+
+  @Test
+  void methodNotAllowedTest() throws IOException, InterruptedException {
+    HttpResponse<String> response = client.send(
+        HttpRequest.newBuilder(uri("/normalize")).GET().build(), BodyHandlers.ofString());
+
+    assertEquals(405, response.statusCode());
+    assertTrue(toJson(response).has("error"));
+  }
+
+  @Test
+  void invalidBodyTest() throws IOException, InterruptedException {
+    HttpResponse<String> invalid = post("/analyse", "{\"type\": ");
+    HttpResponse<String> empty = post("/analyse", "");
+
+    assertEquals(400, invalid.statusCode());
+    assertTrue(toJson(invalid).has("error"));
+    assertEquals(400, empty.statusCode());
+  }
+
+  private HttpResponse<String> post(String path, String body)
+      throws IOException, InterruptedException {
+    return client.send(HttpRequest.newBuilder(uri(path)).POST(BodyPublishers.ofString(body))
+        .build(), BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + server.getPort() + path);
+  }
+
+  private static JsonObject toJson(HttpResponse<String> response) {
+    return new Gson().fromJson(response.body(), JsonObject.class);
+  }
+}
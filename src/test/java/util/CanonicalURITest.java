@@ -0,0 +1,64 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class CanonicalURITest {
+
+  @Test
+  void internTest() {
+    CanonicalURI uri = CanonicalURI.of(URI.create("http://example.com/a/b.json#"));
+
+    assertSame(uri, CanonicalURI.of(URI.create("http://example.com/a/b.json#")));
+    assertSame(uri.resolve("c.json#x"), uri.resolve("c.json#x"));
+    assertSame(uri.withoutFragment(), uri.withoutTrailingHash());
+  }
+
+  @Test
+  void derivedFormsTest() {
+    CanonicalURI uri = CanonicalURI.of(URI.create("http://example.com/a/b.json#/definitions/x"));
+
+    assertEquals("http://example.com/a/b.json", uri.withoutFragment().toString());
+    assertEquals("http://example.com/a#/definitions/x", uri.parent().toString());
+    assertEquals("http://example.com/a/c.json", uri.resolve("c.json#").withoutTrailingHash()
+        .toString());
+    assertEquals(URI.create("http://example.com/a/b.json").resolve("%7Bx%7D"),
+        uri.resolve("%7Bx%7D").toURI());
+  }
+
+  @Test
+  void concurrentInternPastLimitTest() throws Exception {
+    int threads = 4;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>();
+    try {
+      for (int t = 0; t < threads; t++) {
+        int thread = t;
+        futures.add(executor.submit(() -> {
+          // together the threads intern several times more URIs than are kept
+          for (int i = 0; i < 2 * CanonicalURI.MAX_INTERNED; i++) {
+            String string = "http://example.com/" + thread + "/" + i + ".json#";
+            CanonicalURI uri = CanonicalURI.of(URI.create(string));
+            assertNotNull(uri);
+            assertEquals(string, uri.toString());
+            assertEquals("http://example.com/" + thread + "/" + i + ".json",
+                uri.resolve("#x").withoutFragment().toString());
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DirWalkerTest {
+
+  @TempDir
+  File dir;
+
+  @BeforeEach
+  void createFiles() throws IOException {
+    for (int i = 0; i < 50; i++) {
+      FileUtils.writeStringToFile(new File(dir, "file" + i + ".json"), "{}", "UTF-8");
+    }
+    FileUtils.writeStringToFile(new File(dir, "sub/nested.json"), "{}", "UTF-8");
+  }
+
+  @Test
+  void nonRecursiveTest() {
+    assertEquals(50, walk(false).size());
+  }
+
+  @Test
+  void recursiveTest() {
+    Set<String> names = walk(true);
+
+    assertEquals(51, names.size());
+    assertTrue(names.contains("nested.json"));
+  }
+
+  @Test
+  void iterateOnlyOnceTest() {
+    try (DirWalker walker = new DirWalker(dir, false)) {
+      walker.iterator();
+      assertThrows(IllegalStateException.class, walker::iterator);
+    }
+  }
+
+  private Set<String> walk(boolean recursive) {
+    Set<String> names = new TreeSet<>();
+    try (DirWalker walker = new DirWalker(dir, recursive, 1)) {
+      for (File file : walker) {
+        names.add(file.getName());
+      }
+    }
+    return names;
+  }
+}
@@ -0,0 +1,94 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class OrderedWorkQueueTest {
+
+  @Test
+  void orderTest() throws Exception {
+    List<Integer> results = new ArrayList<>();
+    CountDownLatch lastDone = new CountDownLatch(1);
+
+    try (OrderedWorkQueue<Integer> queue = new OrderedWorkQueue<>(4, 10, results::add)) {
+      // the first task only completes after the last one
+      queue.submit(() -> {
+        assertTrue(lastDone.await(10, TimeUnit.SECONDS));
+        return 0;
+      });
+      for (int i = 1; i < 9; i++) {
+        int result = i;
+        queue.submit(() -> result);
+      }
+      queue.submit(() -> {
+        lastDone.countDown();
+        return 9;
+      });
+      queue.finish();
+    }
+
+    assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), results);
+  }
+
+  @Test
+  void submitBlocksTest() throws Exception {
+    List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger submitted = new AtomicInteger();
+
+    Thread submitter = new Thread(() -> {
+      try (OrderedWorkQueue<Integer> queue = new OrderedWorkQueue<>(2, 2, results::add)) {
+        for (int i = 0; i < 3; i++) {
+          int result = i;
+          queue.submit(() -> {
+            release.await();
+            return result;
+          });
+          submitted.incrementAndGet();
+        }
+        queue.finish();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    submitter.start();
+
+    while (submitted.get() < 2) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(200);
+    assertEquals(2, submitted.get());
+    assertTrue(results.isEmpty());
+
+    release.countDown();
+    submitter.join(10000);
+    assertEquals(3, submitted.get());
+    assertEquals(List.of(0, 1, 2), results);
+  }
+
+  @Test
+  void failedTaskTest() throws Exception {
+    List<Integer> results = new ArrayList<>();
+
+    try (OrderedWorkQueue<Integer> queue = new OrderedWorkQueue<>(2, 4, results::add)) {
+      queue.submit(() -> 0);
+      queue.submit(() -> {
+        throw new IllegalArgumentException("failed");
+      });
+      queue.submit(() -> 2);
+
+      IllegalStateException e = assertThrows(IllegalStateException.class, queue::finish);
+      assertTrue(e.getCause() instanceof IllegalArgumentException);
+    }
+
+    assertEquals(List.of(0), results);
+  }
+}
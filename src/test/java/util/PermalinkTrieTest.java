@@ -0,0 +1,44 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PermalinkTrieTest {
+  private final PermalinkTrie trie = new PermalinkTrie(Map.of(
+      "https://example.com/", "https://perma.org/1/",
+      "https://example.com/schemas/", "https://perma.org/2/",
+      "http://unused.org/", "https://perma.org/3/"));
+
+  @Test
+  void longestPrefixTest() {
+    assertEquals("https://perma.org/2/a.json",
+        trie.rewrite("https://example.com/schemas/a.json"));
+    assertEquals("https://perma.org/1/schemas.json",
+        trie.rewrite("https://example.com/schemas.json"));
+    assertEquals("https://perma.org/1/x/https://example.com/",
+        trie.rewrite("https://example.com/x/https://example.com/"));
+  }
+
+  @Test
+  void noPrefixTest() {
+    assertFalse(trie.matches("https://example.org/a.json"));
+    assertFalse(trie.matches("https://example.com"));
+    assertNull(trie.rewrite("https://example.org/a.json"));
+    assertTrue(trie.matches("https://example.com/"));
+  }
+
+  @Test
+  void usedPrefixesTest() {
+    trie.rewrite("https://example.com/schemas/a.json");
+    trie.rewrite("https://example.com/schemas/b.json");
+    trie.rewrite("https://example.com/c.json");
+    trie.matches("http://unused.org/d.json");
+
+    assertEquals(Map.of("https://example.com/", 1L, "https://example.com/schemas/", 2L),
+        trie.getUsedPrefixes());
+  }
+}
@@ -0,0 +1,100 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.File;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+class SchemaUtilTest {
+
+  @TempDir
+  File dir;
+
+  private final JsonObject schema = JsonParser
+      .parseString("{\"type\": \"object\", \"properties\": {\"a\": {\"minimum\": 1.50}}}")
+      .getAsJsonObject();
+
+  @Test
+  void gzipRoundTripTest() throws IOException {
+    File plain = new File(dir, "schema.json");
+    File compressed = new File(dir, "schema.json" + SchemaUtil.GZIP_SUFFIX);
+
+    SchemaUtil.writeJsonToFile(schema, plain);
+    SchemaUtil.writeJsonToFile(schema, compressed);
+
+    assertEquals(SchemaUtil.readFile(plain), SchemaUtil.readFile(compressed));
+    assertTrue(compressed.length() < plain.length());
+  }
+
+  @Test
+  void compactTest() throws IOException {
+    File file = new File(dir, "schema.json");
+
+    SchemaUtil.writeJsonToFile(schema, file, true);
+
+    assertEquals("{\"type\":\"object\",\"properties\":{\"a\":{\"minimum\":1.50}}}",
+        SchemaUtil.readFile(file));
+  }
+
+  @Test
+  void gsonOutputTest() throws IOException {
+    JsonObject element = new JsonObject();
+    // escaped characters on both sides of the buffer boundaries of the writers
+    StringBuilder text = new StringBuilder();
+    while (text.length() < 20000) {
+      text.append("\u00a9 <a href='x'>&amp;</a> \u2018\u2019\u201c\u201d \u00e4 \\ \" ");
+    }
+    element.addProperty("description", text.toString());
+    element.add("default", JsonNull.INSTANCE);
+    element.add("schema", schema);
+    JsonArray array = new JsonArray();
+    array.add(1);
+    array.add("\u201cenum\u201d");
+    array.add(JsonNull.INSTANCE);
+    array.add(new JsonObject());
+    array.add(new JsonArray());
+    element.add("enum", array);
+    File pretty = new File(dir, "pretty.json");
+    File compact = new File(dir, "compact.json");
+
+    SchemaUtil.writeJsonToFile(element, pretty);
+    SchemaUtil.writeJsonToFile(element, compact, true);
+
+    assertEquals(toJson(new GsonBuilder().disableHtmlEscaping().setPrettyPrinting().create(),
+        element), SchemaUtil.readFile(pretty));
+    assertEquals(toJson(new GsonBuilder().disableHtmlEscaping().create(), element),
+        SchemaUtil.readFile(compact));
+  }
+
+  /**
+   * Gets <code>element</code> as Json like it was written before it was streamed.
+   */
+  private static String toJson(Gson gson, JsonObject element) {
+    StringBuilder json = new StringBuilder();
+    for (char c : gson.toJson(element).toCharArray()) {
+      if ("\u00a9\u2018\u2019\u201c\u201d".indexOf(c) >= 0) {
+        json.append("\\u").append(Integer.toHexString(0x10000 | c).substring(1));
+      } else {
+        json.append(c);
+      }
+    }
+    return json.toString();
+  }
+
+  @Test
+  void normalizedFileTest() throws IOException {
+    File compressed = new File(dir, "schema_Normalized.json" + SchemaUtil.GZIP_SUFFIX);
+    SchemaUtil.writeJsonToFile(schema, compressed);
+
+    assertEquals(compressed, SchemaUtil.getNormalizedFile(dir, "schema.json"));
+    assertEquals("schema_Normalized.json", SchemaUtil.removeGzipSuffix(compressed.getName()));
+  }
+}